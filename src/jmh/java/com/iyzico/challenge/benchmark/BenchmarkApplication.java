@@ -0,0 +1,85 @@
+package com.iyzico.challenge.benchmark;
+
+import com.iyzico.challenge.Application;
+import com.iyzico.challenge.request.BulkSeatRequest;
+import com.iyzico.challenge.request.FlightRequest;
+import com.iyzico.challenge.request.SeatLayoutRequest;
+import com.iyzico.challenge.service.BankPaymentRequest;
+import com.iyzico.challenge.service.BankPaymentResponse;
+import com.iyzico.challenge.service.BankService;
+import com.iyzico.challenge.service.FlightService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application for a benchmark trial: a private in-memory H2 database, no web server, quiet logging and
+ * a bank that answers immediately, so the measured time is the service's own.
+ */
+final class BenchmarkApplication {
+
+    private static final String LETTERS = "ABCDEF";
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        String name = "benchmark-" + UUID.randomUUID();
+        return new SpringApplicationBuilder(Application.class, ZeroLatencyBank.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                        "--payment.journal.path=target/jmh/" + name + ".journal",
+                        "--iyzico.api-key=benchmark",
+                        "--iyzico.secret-key=benchmark",
+                        "--iyzico.base-url=http://localhost",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.iyzico.challenge=WARN");
+    }
+
+    static FlightRequest flightRequest(String flightName) {
+        FlightRequest flightRequest = new FlightRequest();
+        flightRequest.setFlightName(flightName);
+        flightRequest.setOrigin("IST");
+        flightRequest.setDestination("AMS");
+        flightRequest.setDepartureTime("01-06-2030 10:00");
+        flightRequest.setArrivalTime("01-06-2030 13:30");
+        flightRequest.setPrice(BigDecimal.valueOf(150));
+        return flightRequest;
+    }
+
+    static Long createFlight(FlightService flightService, String flightName) {
+        return flightService.createFlight(flightRequest(flightName)).getBody().getData().getFlightId();
+    }
+
+    /**
+     * Adds the seats with one bulk request and returns their ids. The seat count is rounded up to full rows.
+     */
+    static List<Long> addSeats(FlightService flightService, Long flightId, int seats) {
+        SeatLayoutRequest layout = new SeatLayoutRequest();
+        layout.setRows((seats + LETTERS.length() - 1) / LETTERS.length());
+        layout.setLetters(LETTERS);
+        BulkSeatRequest bulkSeatRequest = new BulkSeatRequest();
+        bulkSeatRequest.setLayout(layout);
+        return flightService.addSeats(flightId, bulkSeatRequest).getBody().getData().getSeatIds();
+    }
+
+    static class ZeroLatencyBank {
+
+        @Bean
+        @Primary
+        BankService zeroLatencyBankService() {
+            return new BankService() {
+                @Override
+                public BankPaymentResponse pay(BankPaymentRequest request) {
+                    return new BankPaymentResponse("200");
+                }
+            };
+        }
+    }
+}
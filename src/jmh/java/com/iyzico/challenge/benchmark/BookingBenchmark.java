@@ -0,0 +1,79 @@
+package com.iyzico.challenge.benchmark;
+
+import com.iyzico.challenge.response.DefaultMessageResponse;
+import com.iyzico.challenge.service.FlightService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The booking path of {@link FlightService#bookSeat(Long, Long)} with a bank that answers immediately: seat hold,
+ * conditional claim, journal append, write-behind payment and the booked seat insert. Every invocation books a
+ * new seat; when a flight is full the next one is created inside the measurement, once per {@code seatsPerFlight}
+ * bookings.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingBenchmark {
+
+    @Param({"100", "1000"})
+    private int flights;
+
+    @Param({"180", "960"})
+    private int seatsPerFlight;
+
+    private ConfigurableApplicationContext context;
+    private FlightService flightService;
+    private Long flightId;
+    private List<Long> seatIds;
+    private int nextSeat;
+    private int bookingFlights;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        flightService = context.getBean(FlightService.class);
+        for (int i = 0; i < flights; i++) {
+            Long catalogFlightId = BenchmarkApplication.createFlight(flightService, "Catalog" + i);
+            BenchmarkApplication.addSeats(flightService, catalogFlightId, seatsPerFlight);
+        }
+        nextBookingFlight();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public DefaultMessageResponse bookSeat() {
+        if (nextSeat == seatIds.size()) {
+            nextBookingFlight();
+        }
+        return flightService.bookSeat(flightId, seatIds.get(nextSeat++));
+    }
+
+    private void nextBookingFlight() {
+        flightId = BenchmarkApplication.createFlight(flightService, "Booking" + bookingFlights++);
+        seatIds = BenchmarkApplication.addSeats(flightService, flightId, seatsPerFlight);
+        nextSeat = 0;
+    }
+}
@@ -0,0 +1,92 @@
+package com.iyzico.challenge.benchmark;
+
+import com.iyzico.challenge.response.DefaultMessageResponse;
+import com.iyzico.challenge.response.DetailFlightResponse;
+import com.iyzico.challenge.service.FlightCatalogCache;
+import com.iyzico.challenge.service.FlightService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog reads and flight updates of {@link FlightService} against catalogs of {@code flights} flights with
+ * {@code seatsPerFlight} seats each.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlightCatalogBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int flights;
+
+    @Param({"12", "180"})
+    private int seatsPerFlight;
+
+    private ConfigurableApplicationContext context;
+    private FlightService flightService;
+    private FlightCatalogCache flightCatalogCache;
+    private final List<Long> flightIds = new ArrayList<>();
+    private int nextFlight;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        flightService = context.getBean(FlightService.class);
+        flightCatalogCache = context.getBean(FlightCatalogCache.class);
+        for (int i = 0; i < flights; i++) {
+            Long flightId = BenchmarkApplication.createFlight(flightService, "Catalog" + i);
+            BenchmarkApplication.addSeats(flightService, flightId, seatsPerFlight);
+            flightIds.add(flightId);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Served from the catalog cache.
+     */
+    @Benchmark
+    public DetailFlightResponse getAllFlightsCached() {
+        return flightService.getAllFlights();
+    }
+
+    /**
+     * Reads every flight with its available seats and assembles the {@code FlightDto} list.
+     */
+    @Benchmark
+    public DetailFlightResponse getAllFlightsUncached() {
+        flightCatalogCache.invalidateCatalog();
+        return flightService.getAllFlights();
+    }
+
+    /**
+     * Loads one flight and writes it back through the request mapping and date parsing of the service.
+     */
+    @Benchmark
+    public DefaultMessageResponse updateFlight() {
+        int index = nextFlight++ % flightIds.size();
+        return flightService.updateFlight(flightIds.get(index), BenchmarkApplication.flightRequest("Catalog" + index));
+    }
+}
@@ -0,0 +1,56 @@
+package com.iyzico.challenge.benchmark;
+
+import com.iyzico.challenge.entity.Flight;
+import com.iyzico.challenge.request.FlightRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.BeanUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The steps of the service's request-to-entity mapping without the database: {@link BeanUtils#copyProperties} and
+ * the date parsing, once with a formatter built per call as the service does and once with a shared formatter.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FlightMappingBenchmark {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    private final FlightRequest flightRequest = BenchmarkApplication.flightRequest("Mapping");
+
+    @Benchmark
+    public Flight copyProperties() {
+        Flight flight = new Flight();
+        BeanUtils.copyProperties(flightRequest, flight);
+        return flight;
+    }
+
+    @Benchmark
+    public void parseDatesWithNewFormatter(Blackhole blackhole) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+        blackhole.consume(LocalDateTime.parse(flightRequest.getDepartureTime(), formatter));
+        blackhole.consume(LocalDateTime.parse(flightRequest.getArrivalTime(), formatter));
+    }
+
+    @Benchmark
+    public void parseDatesWithSharedFormatter(Blackhole blackhole) {
+        blackhole.consume(LocalDateTime.parse(flightRequest.getDepartureTime(), FORMATTER));
+        blackhole.consume(LocalDateTime.parse(flightRequest.getArrivalTime(), FORMATTER));
+    }
+}
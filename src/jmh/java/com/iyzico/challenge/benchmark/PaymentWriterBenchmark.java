@@ -0,0 +1,78 @@
+package com.iyzico.challenge.benchmark;
+
+import com.iyzico.challenge.entity.Payment;
+import com.iyzico.challenge.entity.PooledSequenceGenerator;
+import com.iyzico.challenge.repository.PaymentRepository;
+import com.iyzico.challenge.service.JdbcPaymentWriter;
+import com.iyzico.challenge.service.JpaPaymentWriter;
+import com.iyzico.challenge.service.PaymentWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One write-behind batch of payments through the JPA and the JDBC {@link PaymentWriter}, each in its own
+ * transaction as the writer threads of the write-behind queue run them.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentWriterBenchmark {
+
+    @Param({"jpa", "jdbc"})
+    private String writer;
+
+    @Param({"50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private PaymentWriter paymentWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        paymentWriter = "jdbc".equals(writer)
+                ? new JdbcPaymentWriter(context.getBean(JdbcTemplate.class), transactionManager, PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE)
+                : new JpaPaymentWriter(context.getBean(PaymentRepository.class), transactionManager);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Payment> writeBatch() {
+        List<Payment> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            Payment payment = new Payment();
+            payment.setPrice(BigDecimal.valueOf(i));
+            payment.setBankResponse("200");
+            batch.add(payment);
+        }
+        paymentWriter.write(batch);
+        return batch;
+    }
+}
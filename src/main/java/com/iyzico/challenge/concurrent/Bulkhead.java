@@ -0,0 +1,105 @@
+package com.iyzico.challenge.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps the concurrent calls to one remote service, so that a slow service ties up at most
+ * {@code maxConcurrentCalls} calls and other endpoints keep their threads. A call waits up to
+ * {@code maxWaitMillis} for a slot and is rejected after that. Asynchronous calls hold their slot until their
+ * future completes, however long the caller waits for it.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMillis;
+    private final Semaphore slots;
+    private final Counter rejectedCounter;
+
+    public Bulkhead(String name, int maxConcurrentCalls, long maxWaitMillis, MeterRegistry meterRegistry) {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("Bulkhead " + name + " needs at least one concurrent call");
+        }
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMillis = maxWaitMillis;
+        this.slots = new Semaphore(maxConcurrentCalls);
+        this.rejectedCounter = Counter.builder("bulkhead.rejected")
+                .description("Calls rejected because every slot was taken")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("bulkhead.active", this, Bulkhead::activeCalls)
+                .description("Calls currently holding a slot")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public int activeCalls() {
+        return maxConcurrentCalls - slots.availablePermits();
+    }
+
+    /**
+     * @throws BulkheadFullException when no slot frees up within the maximum wait
+     */
+    public <T> T execute(Supplier<T> call) {
+        acquireOrReject();
+        try {
+            return call.get();
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * Starts an asynchronous call and keeps its slot until the returned future completes.
+     *
+     * @throws BulkheadFullException when no slot frees up within the maximum wait
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        acquireOrReject();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException | Error e) {
+            slots.release();
+            throw e;
+        }
+        future.whenComplete((result, failure) -> slots.release());
+        return future;
+    }
+
+    private void acquireOrReject() {
+        if (!acquire()) {
+            rejectedCounter.increment();
+            throw new BulkheadFullException("All " + maxConcurrentCalls + " " + name + " slots are taken");
+        }
+    }
+
+    private boolean acquire() {
+        if (slots.tryAcquire()) {
+            return true;
+        }
+        if (maxWaitMillis <= 0) {
+            return false;
+        }
+        try {
+            return slots.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public static class BulkheadFullException extends RuntimeException {
+        public BulkheadFullException(String message) {
+            super(message);
+        }
+    }
+}
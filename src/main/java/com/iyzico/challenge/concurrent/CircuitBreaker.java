@@ -0,0 +1,275 @@
+package com.iyzico.challenge.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Count based circuit breaker for calls to a slow remote service. The outcomes of the last {@code windowSize}
+ * calls decide the state: once at least {@code minimumCalls} were recorded and the share of failed or of slow calls
+ * reaches its threshold, the breaker opens and rejects calls without making them. After {@code openMillis} it lets
+ * {@code halfOpenCalls} probes through; it closes if they are healthy and opens again otherwise. A probe still
+ * running after {@code slowCallMillis} counts as a failed call, so a hanging probe cannot keep the breaker half open.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final Settings settings;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private final MeterRegistry meterRegistry;
+    private final Counter notPermittedCounter;
+    private final Map<State, Map<State, Counter>> transitionCounters = new EnumMap<>(State.class);
+
+    // outcome ring of the closed state: bit 0 failed, bit 1 slow
+    private final byte[] outcomes;
+    private int next;
+    private int recorded;
+    private int failed;
+    private int slow;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenRecorded;
+    private int halfOpenFailed;
+    private int halfOpenSlow;
+    private final List<Permit> halfOpenProbes = new ArrayList<>();
+
+    public CircuitBreaker(String name, Settings settings, MeterRegistry meterRegistry) {
+        this(name, settings, meterRegistry, System::nanoTime);
+    }
+
+    public CircuitBreaker(String name, Settings settings, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (settings.getWindowSize() <= 0 || settings.getMinimumCalls() <= 0 || settings.getHalfOpenCalls() <= 0) {
+            throw new IllegalArgumentException("Window size, minimum calls and half open calls of " + name + " must be positive");
+        }
+        this.name = name;
+        this.settings = settings;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(settings.getSlowCallMillis());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(settings.getOpenMillis());
+        this.nanoClock = nanoClock;
+        this.meterRegistry = meterRegistry;
+        this.outcomes = new byte[settings.getWindowSize()];
+        this.notPermittedCounter = Counter.builder("circuit.breaker.not.permitted")
+                .description("Calls rejected without being made because the breaker was open")
+                .tag("name", name)
+                .register(meterRegistry);
+        for (State gaugeState : State.values()) {
+            Gauge.builder("circuit.breaker.state", this, breaker -> breaker.state == gaugeState ? 1 : 0)
+                    .description("1 for the current state of the breaker")
+                    .tag("name", name)
+                    .tag("state", gaugeState.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Whether a call would be let through now, without taking a half open probe. Callers use it to fail before
+     * queueing work whose call would be rejected anyway.
+     */
+    public boolean isCallPermitted() {
+        State current = state;
+        if (current == State.OPEN) {
+            return nanoClock.getAsLong() - openedAt >= openNanos;
+        }
+        if (current == State.HALF_OPEN) {
+            synchronized (this) {
+                expireProbes();
+                return state == State.HALF_OPEN && halfOpenPermits > 0;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs the call and records its outcome. Exceptions and results matching {@code failedResult} are failures.
+     *
+     * @throws CallNotPermittedException while the breaker is open or all half open probes are taken
+     */
+    public <T> T execute(Supplier<T> call, Predicate<T> failedResult) {
+        Permit permit = acquirePermission();
+        boolean failure = true;
+        try {
+            T result = call.get();
+            failure = failedResult.test(result);
+            return result;
+        } finally {
+            record(permit, failure, nanoClock.getAsLong() - permit.startedAt);
+        }
+    }
+
+    private synchronized Permit acquirePermission() {
+        if (state == State.HALF_OPEN) {
+            expireProbes();
+        }
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < openNanos) {
+                notPermittedCounter.increment();
+                throw new CallNotPermittedException(name + " circuit breaker is open");
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                notPermittedCounter.increment();
+                throw new CallNotPermittedException(name + " circuit breaker is probing");
+            }
+            halfOpenPermits--;
+        }
+        Permit permit = new Permit(state, nanoClock.getAsLong());
+        if (state == State.HALF_OPEN) {
+            halfOpenProbes.add(permit);
+        }
+        return permit;
+    }
+
+    private synchronized void record(Permit permit, boolean failure, long durationNanos) {
+        boolean slowCall = durationNanos >= slowCallNanos;
+        if (permit.permittedIn == State.HALF_OPEN) {
+            // probes of an earlier half open phase, or already counted as failed, may still finish after the breaker moved on
+            if (state != State.HALF_OPEN || !halfOpenProbes.remove(permit)) {
+                return;
+            }
+            recordProbe(failure, slowCall);
+            return;
+        }
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (recorded == outcomes.length) {
+            byte oldest = outcomes[next];
+            failed -= oldest & 1;
+            slow -= (oldest >> 1) & 1;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = (byte) ((failure ? 1 : 0) | (slowCall ? 2 : 0));
+        next = (next + 1) % outcomes.length;
+        failed += failure ? 1 : 0;
+        slow += slowCall ? 1 : 0;
+        if (recorded >= settings.getMinimumCalls() && exceeded(failed, slow, recorded)) {
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * Counts the probes that have been running for {@code slowCallMillis} as failed slow calls.
+     */
+    private void expireProbes() {
+        long now = nanoClock.getAsLong();
+        Iterator<Permit> probes = halfOpenProbes.iterator();
+        while (state == State.HALF_OPEN && probes.hasNext()) {
+            Permit probe = probes.next();
+            if (now - probe.startedAt >= slowCallNanos) {
+                probes.remove();
+                log.warn(name + " circuit breaker probe did not complete within " + settings.getSlowCallMillis() + " ms, counted as failed");
+                recordProbe(true, true);
+            }
+        }
+    }
+
+    private void recordProbe(boolean failure, boolean slowCall) {
+        halfOpenRecorded++;
+        halfOpenFailed += failure ? 1 : 0;
+        halfOpenSlow += slowCall ? 1 : 0;
+        if (halfOpenRecorded == settings.getHalfOpenCalls()) {
+            transition(exceeded(halfOpenFailed, halfOpenSlow, halfOpenRecorded) ? State.OPEN : State.CLOSED);
+        }
+    }
+
+    private boolean exceeded(int failedCalls, int slowCalls, int calls) {
+        return failedCalls * 100.0 / calls >= settings.getFailureRateThreshold()
+                || slowCalls * 100.0 / calls >= settings.getSlowCallRateThreshold();
+    }
+
+    private void transition(State to) {
+        State from = state;
+        if (to == State.OPEN) {
+            openedAt = nanoClock.getAsLong();
+        } else if (to == State.HALF_OPEN) {
+            halfOpenPermits = settings.getHalfOpenCalls();
+            halfOpenProbes.clear();
+            halfOpenRecorded = 0;
+            halfOpenFailed = 0;
+            halfOpenSlow = 0;
+        } else {
+            next = 0;
+            recorded = 0;
+            failed = 0;
+            slow = 0;
+        }
+        state = to;
+        transitionCounters.computeIfAbsent(from, key -> new EnumMap<>(State.class))
+                .computeIfAbsent(to, key -> Counter.builder("circuit.breaker.transitions")
+                        .description("State changes of the breaker")
+                        .tag("name", name)
+                        .tag("from", from.name().toLowerCase())
+                        .tag("to", to.name().toLowerCase())
+                        .register(meterRegistry))
+                .increment();
+        if (to == State.OPEN) {
+            log.warn(name + " circuit breaker opened, calls fail for " + settings.getOpenMillis() + " ms");
+        } else {
+            log.info(name + " circuit breaker moved from " + from + " to " + to);
+        }
+    }
+
+    /**
+     * Thresholds of a breaker; rates are percentages of the calls in the window.
+     */
+    @Getter
+    @Setter
+    public static class Settings {
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 50;
+        private long slowCallMillis = 10000;
+        private double slowCallRateThreshold = 50;
+        private long openMillis = 30000;
+        private int halfOpenCalls = 3;
+    }
+
+    private static final class Permit {
+        private final State permittedIn;
+        private final long startedAt;
+
+        private Permit(State permittedIn, long startedAt) {
+            this.permittedIn = permittedIn;
+            this.startedAt = startedAt;
+        }
+    }
+
+    public static class CallNotPermittedException extends RuntimeException {
+        public CallNotPermittedException(String message) {
+            super(message);
+        }
+    }
+}
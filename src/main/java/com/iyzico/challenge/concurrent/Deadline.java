@@ -0,0 +1,86 @@
+package com.iyzico.challenge.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which a request must be answered. {@link #bind()} makes it the deadline of the current thread,
+ * so that code the request calls, including tasks handed to the payment threads, can drop work nobody waits for
+ * anymore.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long timeoutMillis;
+    private final long expiresAtNanos;
+
+    private Deadline(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    public static Deadline after(long timeoutMillis) {
+        return new Deadline(timeoutMillis);
+    }
+
+    /**
+     * The deadline bound to the current thread, or {@code null} when none is.
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes this the deadline of the current thread until the returned scope is closed.
+     */
+    public Scope bind() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(this);
+        return scope;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public long remainingNanos() {
+        return expiresAtNanos - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * @throws DeadlineExceededException when the deadline has passed, so that {@code work} is not started
+     */
+    public void check(String work) {
+        if (isExpired()) {
+            throw new DeadlineExceededException(work + " dropped, the " + timeoutMillis + " ms deadline has passed");
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Deadline previous;
+
+        private Scope(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static class DeadlineExceededException extends RuntimeException {
+        public DeadlineExceededException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.iyzico.challenge.configuration;
+
+import com.iyzico.challenge.diagnostics.ConnectionHoldTracker;
+import com.iyzico.challenge.diagnostics.ConnectionTracingPostProcessor;
+import com.iyzico.challenge.service.BankService;
+import com.iyzico.challenge.service.PaymentServiceClients;
+import com.iyzico.challenge.service.RealPaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+
+/**
+ * Traces how long connections are held and whether a remote call starts while one is held, unless
+ * {@code db.connection.trace.mode} is {@code off}. {@code fail} turns violations into exceptions and is used by
+ * the tests.
+ */
+@Configuration
+@ConditionalOnExpression("'${db.connection.trace.mode:warn}' != 'off'")
+public class ConnectionTraceConfig {
+
+    @Bean
+    public ConnectionHoldTracker connectionHoldTracker(MeterRegistry meterRegistry,
+                                                       @Value("${db.connection.trace.mode:warn}") String mode,
+                                                       @Value("${db.connection.trace.hold-threshold-ms:1000}") long holdThresholdMillis) {
+        return new ConnectionHoldTracker(meterRegistry, ConnectionHoldTracker.Mode.valueOf(mode.toUpperCase()), holdThresholdMillis);
+    }
+
+    /**
+     * Payment clients are traced too: the booking thread blocks on the future they return.
+     */
+    @Bean
+    public static ConnectionTracingPostProcessor connectionTracingPostProcessor(ObjectProvider<ConnectionHoldTracker> connectionHoldTracker) {
+        return new ConnectionTracingPostProcessor(connectionHoldTracker,
+                Arrays.asList(BankService.class, RealPaymentService.class, PaymentServiceClients.class));
+    }
+}
@@ -0,0 +1,41 @@
+package com.iyzico.challenge.configuration;
+
+import com.iyzico.challenge.concurrent.Bulkhead;
+import com.iyzico.challenge.concurrent.CircuitBreaker;
+import com.iyzico.challenge.service.PaymentGuards;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PaymentResilienceConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "payment.resilience.bank.circuit-breaker")
+    public CircuitBreaker.Settings bankCircuitBreakerSettings() {
+        return new CircuitBreaker.Settings();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "payment.resilience.iyzico.circuit-breaker")
+    public CircuitBreaker.Settings iyzicoCircuitBreakerSettings() {
+        return new CircuitBreaker.Settings();
+    }
+
+    @Bean
+    public PaymentGuards paymentGuards(MeterRegistry meterRegistry,
+                                       @Value("${payment.resilience.bank.bulkhead.max-concurrent-calls:100}") int bankMaxConcurrentCalls,
+                                       @Value("${payment.resilience.bank.bulkhead.max-wait-ms:0}") long bankMaxWaitMillis,
+                                       @Value("${payment.resilience.iyzico.bulkhead.max-concurrent-calls:50}") int iyzicoMaxConcurrentCalls,
+                                       @Value("${payment.resilience.iyzico.bulkhead.max-wait-ms:0}") long iyzicoMaxWaitMillis,
+                                       @Value("${payment.resilience.iyzico.timeout-ms:30000}") long iyzicoTimeoutMillis) {
+        return new PaymentGuards(
+                new CircuitBreaker("bank", bankCircuitBreakerSettings(), meterRegistry),
+                new Bulkhead("bank", bankMaxConcurrentCalls, bankMaxWaitMillis, meterRegistry),
+                new CircuitBreaker("iyzico", iyzicoCircuitBreakerSettings(), meterRegistry),
+                new Bulkhead("iyzico", iyzicoMaxConcurrentCalls, iyzicoMaxWaitMillis, meterRegistry),
+                iyzicoTimeoutMillis);
+    }
+}
@@ -0,0 +1,64 @@
+package com.iyzico.challenge.configuration;
+
+import com.iyzico.challenge.diagnostics.EndpointQueryStatistics;
+import com.iyzico.challenge.diagnostics.QueryStatisticsCallableInterceptor;
+import com.iyzico.challenge.diagnostics.QueryStatisticsEndpoint;
+import com.iyzico.challenge.diagnostics.QueryStatisticsFilter;
+import com.iyzico.challenge.diagnostics.QueryStatisticsIntegrator;
+import com.iyzico.challenge.diagnostics.QueryStatisticsSessionListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Collections;
+
+/**
+ * Counts the Hibernate work of each HTTP request and exposes it per endpoint at {@code /actuator/querystats},
+ * unless {@code db.query-statistics.enabled} is {@code false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "db.query-statistics.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatisticsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryStatisticsHibernatePropertiesCustomizer() {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, QueryStatisticsSessionListener.class.getName());
+            hibernateProperties.put("hibernate.integrator_provider",
+                    (IntegratorProvider) () -> Collections.singletonList(new QueryStatisticsIntegrator()));
+        };
+    }
+
+    @Bean
+    public EndpointQueryStatistics endpointQueryStatistics() {
+        return new EndpointQueryStatistics();
+    }
+
+    @Bean
+    public QueryStatisticsFilter queryStatisticsFilter(EndpointQueryStatistics endpointQueryStatistics) {
+        return new QueryStatisticsFilter(endpointQueryStatistics);
+    }
+
+    /**
+     * Counts the work of streamed responses, which runs on an async thread after the request thread has returned.
+     */
+    @Bean
+    public WebMvcConfigurer queryStatisticsAsyncConfigurer() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.registerCallableInterceptors(new QueryStatisticsCallableInterceptor());
+            }
+        };
+    }
+
+    @Bean
+    public QueryStatisticsEndpoint queryStatisticsEndpoint(EndpointQueryStatistics endpointQueryStatistics) {
+        return new QueryStatisticsEndpoint(endpointQueryStatistics);
+    }
+}
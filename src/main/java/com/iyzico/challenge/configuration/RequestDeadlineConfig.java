@@ -0,0 +1,15 @@
+package com.iyzico.challenge.configuration;
+
+import com.iyzico.challenge.controller.RequestDeadlineFilter;
+import com.iyzico.challenge.service.RequestDeadlines;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RequestDeadlineConfig {
+
+    @Bean
+    public RequestDeadlineFilter requestDeadlineFilter(RequestDeadlines requestDeadlines) {
+        return new RequestDeadlineFilter(requestDeadlines);
+    }
+}
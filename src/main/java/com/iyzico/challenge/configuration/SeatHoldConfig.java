@@ -0,0 +1,18 @@
+package com.iyzico.challenge.configuration;
+
+import com.iyzico.challenge.concurrent.HashedTimingWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class SeatHoldConfig {
+
+    @Bean(destroyMethod = "stop")
+    public HashedTimingWheel seatHoldTimingWheel(@Value("${seat.hold.tick-ms:100}") long tickMillis,
+                                                 @Value("${seat.hold.wheel-size:512}") int wheelSize) {
+        return new HashedTimingWheel("seat-hold-timer", tickMillis, TimeUnit.MILLISECONDS, wheelSize);
+    }
+}
@@ -0,0 +1,65 @@
+package com.iyzico.challenge.configuration;
+
+import com.iyzico.challenge.service.BankService;
+import com.iyzico.challenge.service.LatencyDistribution;
+import com.iyzico.challenge.service.SimulatedBankService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Replaces the fixed 5 second {@link BankService} with a {@link SimulatedBankService} when the
+ * {@value SimulatedBankService#PROFILE} profile is active, e.g. {@code --spring.profiles.active=simulated-bank}.
+ */
+@Configuration
+@Slf4j
+@Profile(SimulatedBankService.PROFILE)
+public class SimulatedBankConfig {
+
+    public static final String FIXED = "fixed";
+    public static final String UNIFORM = "uniform";
+    public static final String LOG_NORMAL = "log-normal";
+    public static final String BIMODAL = "bimodal";
+
+    @Bean
+    public LatencyDistribution bankLatencyDistribution(@Value("${bank.simulator.latency.distribution:" + FIXED + "}") String distribution,
+                                                       @Value("${bank.simulator.latency.fixed-ms:5000}") long fixedMillis,
+                                                       @Value("${bank.simulator.latency.min-ms:1000}") long minMillis,
+                                                       @Value("${bank.simulator.latency.max-ms:9000}") long maxMillis,
+                                                       @Value("${bank.simulator.latency.median-ms:5000}") long medianMillis,
+                                                       @Value("${bank.simulator.latency.sigma:0.5}") double sigma,
+                                                       @Value("${bank.simulator.latency.slow-median-ms:20000}") long slowMedianMillis,
+                                                       @Value("${bank.simulator.latency.slow-share:0.05}") double slowShare) {
+        switch (distribution) {
+            case FIXED:
+                return LatencyDistribution.fixed(fixedMillis);
+            case UNIFORM:
+                return LatencyDistribution.uniform(minMillis, maxMillis);
+            case LOG_NORMAL:
+                return LatencyDistribution.logNormal(medianMillis, sigma);
+            case BIMODAL:
+                return LatencyDistribution.bimodal(LatencyDistribution.logNormal(medianMillis, sigma),
+                        LatencyDistribution.logNormal(slowMedianMillis, sigma), slowShare);
+            default:
+                throw new IllegalArgumentException("Unknown bank latency distribution: " + distribution);
+        }
+    }
+
+    @Bean
+    @Primary
+    public BankService simulatedBankService(LatencyDistribution bankLatencyDistribution,
+                                            @Value("${bank.simulator.error-rate:0}") double errorRate,
+                                            @Value("${bank.simulator.error-code:500}") String errorCode,
+                                            @Value("${bank.simulator.timeout-rate:0}") double timeoutRate,
+                                            @Value("${bank.simulator.timeout-ms:30000}") long timeoutMillis,
+                                            @Value("${bank.simulator.burst.period-ms:0}") long burstPeriodMillis,
+                                            @Value("${bank.simulator.burst.duration-ms:0}") long burstDurationMillis,
+                                            @Value("${bank.simulator.burst.latency-factor:1}") double burstLatencyFactor) {
+        log.warn("Bank calls are simulated, " + errorRate + " of them fail and " + timeoutRate + " time out");
+        return new SimulatedBankService(bankLatencyDistribution, errorRate, errorCode, timeoutRate, timeoutMillis,
+                burstPeriodMillis, burstDurationMillis, burstLatencyFactor, System::currentTimeMillis);
+    }
+}
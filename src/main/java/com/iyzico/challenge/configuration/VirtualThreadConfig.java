@@ -0,0 +1,30 @@
+package com.iyzico.challenge.configuration;
+
+import com.iyzico.challenge.concurrent.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Serves Tomcat requests on virtual threads when {@code spring.threads.virtual.enabled} is set and the runtime
+ * supports them; otherwise Tomcat keeps its bounded {@code server.tomcat.threads.max} pool.
+ */
+@Configuration
+@Slf4j
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (VirtualThreads.isSupported()) {
+                protocolHandler.setExecutor(VirtualThreads.newVirtualThreadPerTaskExecutor());
+                log.info("Tomcat requests are handled on virtual threads");
+            } else {
+                log.warn("Virtual threads are not supported by this runtime, Tomcat keeps its bounded thread pool");
+            }
+        };
+    }
+}
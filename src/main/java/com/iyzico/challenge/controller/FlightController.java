@@ -1,26 +1,50 @@
 package com.iyzico.challenge.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.iyzico.challenge.exception.Status;
+import com.iyzico.challenge.exception.TransactionCode;
+import com.iyzico.challenge.request.BulkSeatRequest;
 import com.iyzico.challenge.request.ClientRequest;
 import com.iyzico.challenge.request.FlightRequest;
 import com.iyzico.challenge.request.SeatRequest;
+import com.iyzico.challenge.response.BookingResponse;
+import com.iyzico.challenge.response.BulkSeatResponse;
 import com.iyzico.challenge.response.DefaultMessageResponse;
 import com.iyzico.challenge.response.DetailFlightResponse;
 import com.iyzico.challenge.response.FlightResponse;
 import com.iyzico.challenge.response.SeatResponse;
+import com.iyzico.challenge.service.BookingStatusRegistry;
 import com.iyzico.challenge.service.FlightService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 
 @RestController
 @RequestMapping(value = "/flight")
 @RequiredArgsConstructor
 public class FlightController {
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    // milliseconds the client waits for the response, see RequestDeadlineFilter
+    public static final String REQUEST_TIMEOUT_HEADER = "Request-Timeout";
+
+    private static final long MAX_BOOKING_WAIT_MILLIS = 30000;
+
     private final FlightService flightService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping(value = "/create")
     public ResponseEntity<FlightResponse> createFlight(@Valid @RequestBody FlightRequest flightRequest) {
@@ -42,6 +66,11 @@ public class FlightController {
         return new ResponseEntity<>(flightService.addSeat(flightId, seatRequest), HttpStatus.OK);
     }
 
+    @PostMapping(value = "/add/seats/{flightId}")
+    public ResponseEntity<BulkSeatResponse> addSeats(@Valid @PathVariable Long flightId, @Valid @RequestBody BulkSeatRequest bulkSeatRequest) {
+        return new ResponseEntity<>(flightService.addSeats(flightId, bulkSeatRequest), HttpStatus.OK);
+    }
+
     @DeleteMapping(value = "/{flightId}/seat/{seatId}")
     public ResponseEntity<DefaultMessageResponse> deleteSeat(@Valid @PathVariable Long flightId, @Valid @PathVariable Long seatId) {
         return new ResponseEntity<>(flightService.deleteSeat(flightId, seatId), HttpStatus.OK);
@@ -57,13 +86,80 @@ public class FlightController {
         return new ResponseEntity<>(flightService.getAllFlights(), HttpStatus.OK);
     }
 
+    /**
+     * Same document as {@code /flight/all}, written while the catalog is read from the database.
+     */
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllFlights() {
+        return new ResponseEntity<>(this::writeAllFlights, HttpStatus.OK);
+    }
+
     @PostMapping(value = "/{flightId}/book/{seatId}")
-    public ResponseEntity<DefaultMessageResponse> bookSeat(@Valid @PathVariable Long flightId, @Valid @PathVariable Long seatId) {
-        return new ResponseEntity<>(flightService.bookSeat(flightId, seatId), HttpStatus.OK);
+    public ResponseEntity<DefaultMessageResponse> bookSeat(@Valid @PathVariable Long flightId, @Valid @PathVariable Long seatId,
+                                                           @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return new ResponseEntity<>(flightService.bookSeat(flightId, seatId, idempotencyKey), HttpStatus.OK);
     }
 
     @PostMapping(value = "/{flightId}/book/{seatId}/iyzico")
-    public ResponseEntity<DefaultMessageResponse> bookSeatWithIyzico(@Valid @PathVariable Long flightId, @Valid @PathVariable Long seatId, @Valid @RequestBody ClientRequest clientRequest) {
-        return new ResponseEntity<>(flightService.bookSeatWithIyzico(flightId, seatId, clientRequest), HttpStatus.OK);
+    public ResponseEntity<DefaultMessageResponse> bookSeatWithIyzico(@Valid @PathVariable Long flightId, @Valid @PathVariable Long seatId, @Valid @RequestBody ClientRequest clientRequest,
+                                                                     @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return new ResponseEntity<>(flightService.bookSeatWithIyzico(flightId, seatId, clientRequest, idempotencyKey), HttpStatus.OK);
+    }
+
+    /**
+     * Claims the seat and answers 202 Accepted with the booking id while the payment runs in the background; the
+     * Location header points at the booking status.
+     */
+    @PostMapping(value = "/{flightId}/book/{seatId}/async")
+    public ResponseEntity<BookingResponse> bookSeatAsync(@Valid @PathVariable Long flightId, @Valid @PathVariable Long seatId) {
+        BookingResponse bookingResponse = flightService.bookSeatAsync(flightId, seatId);
+        return ResponseEntity.accepted()
+                .location(URI.create("/flight/booking/" + bookingResponse.getBody().getData().getBookingId()))
+                .body(bookingResponse);
+    }
+
+    /**
+     * Returns the booking state. With {@code waitMs} a pending booking is long polled: the response is sent once the
+     * booking is confirmed or failed, or with the pending state after at most {@code waitMs} milliseconds.
+     */
+    @GetMapping(value = "/booking/{bookingId}")
+    public DeferredResult<ResponseEntity<BookingResponse>> getBooking(@Valid @PathVariable Long bookingId,
+                                                                      @RequestParam(value = "waitMs", defaultValue = "0") long waitMillis) {
+        BookingResponse bookingResponse = flightService.getBooking(bookingId);
+        long timeoutMillis = Math.min(Math.max(waitMillis, 0), MAX_BOOKING_WAIT_MILLIS);
+        DeferredResult<ResponseEntity<BookingResponse>> result = new DeferredResult<>(Math.max(timeoutMillis, 1),
+                () -> ResponseEntity.ok(flightService.getBooking(bookingId)));
+        if (timeoutMillis == 0 || !BookingStatusRegistry.State.PENDING.name().equals(bookingResponse.getBody().getData().getState())) {
+            result.setResult(ResponseEntity.ok(bookingResponse));
+            return result;
+        }
+        flightService.whenBookingDone(bookingId, () -> result.setResult(ResponseEntity.ok(flightService.getBooking(bookingId))));
+        return result;
+    }
+
+    private void writeAllFlights(OutputStream outputStream) throws IOException {
+        ObjectWriter flightWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            // a failed stream must end as invalid JSON rather than as a complete-looking, shorter catalog
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("body");
+            generator.writeObjectFieldStart("data");
+            generator.writeArrayFieldStart("flightList");
+            flightService.streamAllFlights(flightDto -> {
+                try {
+                    flightWriter.writeValue(generator, flightDto);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.writeObjectField("status", new Status(TransactionCode.SUCCESS));
+            generator.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 }
@@ -0,0 +1,48 @@
+package com.iyzico.challenge.controller;
+
+import com.iyzico.challenge.concurrent.Deadline;
+import com.iyzico.challenge.service.RequestDeadlines;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Binds the deadline of each request to the request thread: the {@value FlightController#REQUEST_TIMEOUT_HEADER}
+ * header in milliseconds, or the server default when the header is missing or not a number.
+ */
+@Slf4j
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private final RequestDeadlines requestDeadlines;
+
+    public RequestDeadlineFilter(RequestDeadlines requestDeadlines) {
+        this.requestDeadlines = requestDeadlines;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Deadline deadline = requestDeadlines.resolve(requestedTimeoutMillis(request));
+        try (Deadline.Scope scope = deadline.bind()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private static Long requestedTimeoutMillis(HttpServletRequest request) {
+        String header = request.getHeader(FlightController.REQUEST_TIMEOUT_HEADER);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring " + FlightController.REQUEST_TIMEOUT_HEADER + " header " + header + ", it is not a number of milliseconds");
+            return null;
+        }
+    }
+}
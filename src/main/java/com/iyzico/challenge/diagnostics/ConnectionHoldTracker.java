@@ -0,0 +1,132 @@
+package com.iyzico.challenge.diagnostics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Follows the database connections each thread holds. Connections held longer than {@code holdThresholdMillis},
+ * and remote calls started while the calling thread holds a connection, are violations: a slow bank call then keeps
+ * a connection of the small pool busy and the remaining requests queue for it. Violations are logged and counted
+ * under {@value #VIOLATIONS}; in {@link Mode#FAIL} they also throw a {@link ConnectionHoldViolationException},
+ * so tests catch them.
+ */
+@Slf4j
+public class ConnectionHoldTracker {
+
+    public static final String HOLD_TIME = "db.connection.hold";
+    public static final String VIOLATIONS = "db.connection.hold.violations";
+
+    public enum Mode {
+        OFF, WARN, FAIL
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Mode mode;
+    private final long holdThresholdNanos;
+    private final LongSupplier nanoClock;
+    private final Timer holdTimer;
+    private final Counter thresholdViolations;
+    private final Map<String, Counter> remoteCallViolations = new ConcurrentHashMap<>();
+    // held connections per thread; leases keep a reference, so a connection closed on another thread is taken off
+    // the thread that got it
+    private final ThreadLocal<AtomicInteger> held = ThreadLocal.withInitial(AtomicInteger::new);
+
+    public ConnectionHoldTracker(MeterRegistry meterRegistry, Mode mode, long holdThresholdMillis) {
+        this(meterRegistry, mode, holdThresholdMillis, System::nanoTime);
+    }
+
+    ConnectionHoldTracker(MeterRegistry meterRegistry, Mode mode, long holdThresholdMillis, LongSupplier nanoClock) {
+        this.meterRegistry = meterRegistry;
+        this.mode = mode;
+        this.holdThresholdNanos = TimeUnit.MILLISECONDS.toNanos(holdThresholdMillis);
+        this.nanoClock = nanoClock;
+        this.holdTimer = Timer.builder(HOLD_TIME)
+                .description("Time between getting a connection from the pool and closing it")
+                .register(meterRegistry);
+        this.thresholdViolations = Counter.builder(VIOLATIONS)
+                .description("Connections held too long or across a remote call")
+                .tag("reason", "threshold")
+                .tag("call", "none")
+                .register(meterRegistry);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Number of connections the current thread has taken and not closed yet.
+     */
+    public int heldConnections() {
+        return held.get().get();
+    }
+
+    /**
+     * Marks a connection as taken by the current thread; the returned lease is handed to {@link #released}.
+     */
+    public Lease acquired() {
+        AtomicInteger threadHeld = held.get();
+        threadHeld.incrementAndGet();
+        return new Lease(threadHeld, Thread.currentThread().getName(), nanoClock.getAsLong());
+    }
+
+    public void released(Lease lease) {
+        lease.held.decrementAndGet();
+        long heldNanos = nanoClock.getAsLong() - lease.acquiredAt;
+        holdTimer.record(heldNanos, TimeUnit.NANOSECONDS);
+        if (heldNanos > holdThresholdNanos) {
+            thresholdViolations.increment();
+            violation("Connection taken by " + lease.threadName + " was held for "
+                    + TimeUnit.NANOSECONDS.toMillis(heldNanos) + " ms");
+        }
+    }
+
+    /**
+     * Checks that the current thread holds no connection before it starts the remote {@code call}.
+     */
+    public void beforeRemoteCall(String call) {
+        int connections = held.get().get();
+        if (connections == 0) {
+            return;
+        }
+        remoteCallViolations.computeIfAbsent(call, key -> Counter.builder(VIOLATIONS)
+                .description("Connections held too long or across a remote call")
+                .tag("reason", "remote-call")
+                .tag("call", key)
+                .register(meterRegistry)).increment();
+        violation(Thread.currentThread().getName() + " calls " + call + " while holding " + connections + " connection(s)");
+    }
+
+    private void violation(String message) {
+        if (mode == Mode.FAIL) {
+            throw new ConnectionHoldViolationException(message);
+        }
+        log.warn(message);
+    }
+
+    public static final class Lease {
+        private final AtomicInteger held;
+        private final String threadName;
+        private final long acquiredAt;
+
+        private Lease(AtomicInteger held, String threadName, long acquiredAt) {
+            this.held = held;
+            this.threadName = threadName;
+            this.acquiredAt = acquiredAt;
+        }
+    }
+
+    public static class ConnectionHoldViolationException extends IllegalStateException {
+        public ConnectionHoldViolationException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.iyzico.challenge.diagnostics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Wraps data sources in a {@link TracingDataSource} and proxies the beans of {@code remoteCallTypes}, whose public
+ * methods call remote services, so that the {@link ConnectionHoldTracker} sees every connection and every remote
+ * call. The tracker is looked up on first use, so the post processor does not pull it and its meter registry into
+ * early initialization.
+ */
+public class ConnectionTracingPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<ConnectionHoldTracker> connectionHoldTrackerProvider;
+    private final List<Class<?>> remoteCallTypes;
+    private volatile ConnectionHoldTracker connectionHoldTracker;
+
+    public ConnectionTracingPostProcessor(ObjectProvider<ConnectionHoldTracker> connectionHoldTrackerProvider,
+                                          List<Class<?>> remoteCallTypes) {
+        this.connectionHoldTrackerProvider = connectionHoldTrackerProvider;
+        this.remoteCallTypes = remoteCallTypes;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof TracingDataSource)) {
+            return new TracingDataSource((DataSource) bean, connectionHoldTracker());
+        }
+        for (Class<?> remoteCallType : remoteCallTypes) {
+            if (remoteCallType.isInstance(bean)) {
+                return remoteCallProxy(bean, remoteCallType);
+            }
+        }
+        return bean;
+    }
+
+    private Object remoteCallProxy(Object bean, Class<?> remoteCallType) {
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            if (invocation.getMethod().getDeclaringClass() != Object.class) {
+                connectionHoldTracker().beforeRemoteCall(remoteCallType.getSimpleName() + "." + invocation.getMethod().getName());
+            }
+            return invocation.proceed();
+        });
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    private ConnectionHoldTracker connectionHoldTracker() {
+        ConnectionHoldTracker tracker = connectionHoldTracker;
+        if (tracker == null) {
+            tracker = connectionHoldTrackerProvider.getObject();
+            connectionHoldTracker = tracker;
+        }
+        return tracker;
+    }
+}
@@ -0,0 +1,66 @@
+package com.iyzico.challenge.diagnostics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sums the {@link QueryStatistics} of the HTTP requests per endpoint, e.g. {@code POST /flight/{flightId}/book/{seatId}}.
+ */
+public class EndpointQueryStatistics {
+
+    private final Map<String, Totals> totalsByEndpoint = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, QueryStatistics statistics) {
+        totalsByEndpoint.computeIfAbsent(endpoint, key -> new Totals()).add(statistics);
+    }
+
+    /**
+     * Totals, per request averages and the maximum statement count of a single request, by endpoint.
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        totalsByEndpoint.forEach((endpoint, totals) -> snapshot.put(endpoint, totals.snapshot()));
+        return snapshot;
+    }
+
+    private static final class Totals {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder entityLoads = new LongAdder();
+        private final LongAdder flushes = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+
+        private void add(QueryStatistics statistics) {
+            requests.increment();
+            statements.add(statistics.getStatements());
+            batches.add(statistics.getBatches());
+            entityLoads.add(statistics.getEntityLoads());
+            flushes.add(statistics.getFlushes());
+            maxStatements.accumulate(statistics.getStatements());
+        }
+
+        private Map<String, Object> snapshot() {
+            long requestCount = requests.sum();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("requests", requestCount);
+            snapshot.put("statements", statements.sum());
+            snapshot.put("statementsPerRequest", perRequest(statements.sum(), requestCount));
+            snapshot.put("maxStatementsPerRequest", maxStatements.get());
+            snapshot.put("batches", batches.sum());
+            snapshot.put("entityLoads", entityLoads.sum());
+            snapshot.put("entityLoadsPerRequest", perRequest(entityLoads.sum(), requestCount));
+            snapshot.put("flushes", flushes.sum());
+            snapshot.put("flushesPerRequest", perRequest(flushes.sum(), requestCount));
+            return snapshot;
+        }
+
+        private static double perRequest(long total, long requestCount) {
+            return requestCount == 0 ? 0 : (double) total / requestCount;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.iyzico.challenge.diagnostics;
+
+/**
+ * Counts the JDBC statements, batches, entity loads and flushes Hibernate runs on the current thread between
+ * {@link #start()} and {@link #close()}. Captures nest: a closed capture adds its counts to the capture it was
+ * started in. Work handed to other threads, e.g. payments, is not counted; streamed responses are counted by
+ * {@link QueryStatisticsCallableInterceptor} and added to their request.
+ */
+public final class QueryStatistics implements AutoCloseable {
+
+    private static final ThreadLocal<QueryStatistics> CURRENT = new ThreadLocal<>();
+
+    private final QueryStatistics enclosing;
+    private long statements;
+    private long batches;
+    private long entityLoads;
+    private long flushes;
+    private long flushedEntities;
+    private boolean closed;
+
+    private QueryStatistics(QueryStatistics enclosing) {
+        this.enclosing = enclosing;
+    }
+
+    public static QueryStatistics start() {
+        QueryStatistics statistics = new QueryStatistics(CURRENT.get());
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static QueryStatistics current() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (enclosing != null) {
+            enclosing.add(this);
+        }
+        if (CURRENT.get() == this) {
+            if (enclosing == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(enclosing);
+            }
+        }
+    }
+
+    /**
+     * Adds the counts of a capture taken on another thread or in another dispatch of the same request.
+     */
+    void add(QueryStatistics other) {
+        statements += other.statements;
+        batches += other.batches;
+        entityLoads += other.entityLoads;
+        flushes += other.flushes;
+        flushedEntities += other.flushedEntities;
+    }
+
+    void statementPrepared() {
+        statements++;
+    }
+
+    void batchExecuted() {
+        batches++;
+    }
+
+    void entityLoaded() {
+        entityLoads++;
+    }
+
+    void flushed(int entities) {
+        flushes++;
+        flushedEntities += entities;
+    }
+
+    /**
+     * Prepared statements, the same measure as Hibernate's {@code prepareStatementCount}; a JDBC batch is one
+     * statement however many rows it writes.
+     */
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getEntityLoads() {
+        return entityLoads;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    public long getFlushedEntities() {
+        return flushedEntities;
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements, " + batches + " batches, " + entityLoads + " entity loads, "
+                + flushes + " flushes of " + flushedEntities + " entities";
+    }
+}
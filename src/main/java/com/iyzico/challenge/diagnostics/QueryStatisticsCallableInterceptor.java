@@ -0,0 +1,28 @@
+package com.iyzico.challenge.diagnostics;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Captures the {@link QueryStatistics} of asynchronous request processing on the thread that runs it, e.g. the
+ * pages read while a {@code StreamingResponseBody} is written. {@link QueryStatisticsFilter} adds the capture to
+ * its request when the request completes.
+ */
+public class QueryStatisticsCallableInterceptor implements CallableProcessingInterceptor {
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        request.setAttribute(QueryStatisticsFilter.ASYNC_STATISTICS_ATTRIBUTE, QueryStatistics.start(), RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        Object statistics = request.getAttribute(QueryStatisticsFilter.ASYNC_STATISTICS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (statistics instanceof QueryStatistics) {
+            ((QueryStatistics) statistics).close();
+        }
+    }
+}
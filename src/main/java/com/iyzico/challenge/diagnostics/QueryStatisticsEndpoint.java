@@ -0,0 +1,25 @@
+package com.iyzico.challenge.diagnostics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/querystats}: statements, entity loads and flushes per endpoint since the start. Read only, so
+ * that whoever can reach actuator cannot clear the counters.
+ */
+@Endpoint(id = "querystats")
+public class QueryStatisticsEndpoint {
+
+    private final EndpointQueryStatistics endpointQueryStatistics;
+
+    public QueryStatisticsEndpoint(EndpointQueryStatistics endpointQueryStatistics) {
+        this.endpointQueryStatistics = endpointQueryStatistics;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> queryStatistics() {
+        return endpointQueryStatistics.snapshot();
+    }
+}
@@ -0,0 +1,65 @@
+package com.iyzico.challenge.diagnostics;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Captures the {@link QueryStatistics} of each request and records them under the request's method and mapped path
+ * pattern, so that requests for different flights count towards the same endpoint. Unmapped requests are skipped.
+ * <p>
+ * An asynchronous request, e.g. a streamed response, is recorded once, on the dispatch that completes it, with the
+ * counts of its first dispatch and of the async thread added by {@link QueryStatisticsCallableInterceptor}.
+ */
+public class QueryStatisticsFilter extends OncePerRequestFilter {
+
+    static final String REQUEST_STATISTICS_ATTRIBUTE = QueryStatisticsFilter.class.getName() + ".request";
+    static final String ASYNC_STATISTICS_ATTRIBUTE = QueryStatisticsFilter.class.getName() + ".async";
+
+    private final EndpointQueryStatistics endpointQueryStatistics;
+
+    public QueryStatisticsFilter(EndpointQueryStatistics endpointQueryStatistics) {
+        this.endpointQueryStatistics = endpointQueryStatistics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStatistics statistics = QueryStatistics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statistics.close();
+            if (isAsyncDispatch(request)) {
+                addCapture(statistics, request, REQUEST_STATISTICS_ATTRIBUTE);
+                addCapture(statistics, request, ASYNC_STATISTICS_ATTRIBUTE);
+            }
+            if (isAsyncStarted(request)) {
+                request.setAttribute(REQUEST_STATISTICS_ATTRIBUTE, statistics);
+            } else {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                if (pattern != null) {
+                    endpointQueryStatistics.record(request.getMethod() + " " + pattern, statistics);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private static void addCapture(QueryStatistics statistics, HttpServletRequest request, String attribute) {
+        Object capture = request.getAttribute(attribute);
+        if (capture instanceof QueryStatistics) {
+            statistics.add((QueryStatistics) capture);
+            request.removeAttribute(attribute);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.iyzico.challenge.diagnostics;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+/**
+ * Reports the work of every Hibernate session to the {@link QueryStatistics} capture of the current thread.
+ * Hibernate creates one listener per session from {@code hibernate.session.events.auto}; entity loads come from
+ * {@link EntityLoads}, which is registered as a post load event listener.
+ */
+public class QueryStatisticsSessionListener extends BaseSessionEventListener {
+
+    @Override
+    public void jdbcPrepareStatementEnd() {
+        QueryStatistics statistics = QueryStatistics.current();
+        if (statistics != null) {
+            statistics.statementPrepared();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        QueryStatistics statistics = QueryStatistics.current();
+        if (statistics != null) {
+            statistics.batchExecuted();
+        }
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        QueryStatistics statistics = QueryStatistics.current();
+        if (statistics != null) {
+            statistics.flushed(numberOfEntities);
+        }
+    }
+
+    public static class EntityLoads implements PostLoadEventListener {
+
+        @Override
+        public void onPostLoad(PostLoadEvent event) {
+            QueryStatistics statistics = QueryStatistics.current();
+            if (statistics != null) {
+                statistics.entityLoaded();
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.iyzico.challenge.diagnostics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Reports every connection handed out by the target pool to the {@link ConnectionHoldTracker} until it is closed.
+ * {@code unwrap} reaches the target, so pool metrics and MXBeans keep working through this data source.
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+    private final ConnectionHoldTracker connectionHoldTracker;
+
+    public TracingDataSource(DataSource targetDataSource, ConnectionHoldTracker connectionHoldTracker) {
+        super(targetDataSource);
+        this.connectionHoldTracker = connectionHoldTracker;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return trace(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return trace(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection trace(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new TracedConnection(connection, connectionHoldTracker.acquired()));
+    }
+
+    private class TracedConnection implements InvocationHandler {
+        private final Connection target;
+        private final ConnectionHoldTracker.Lease lease;
+        private boolean closed;
+
+        private TracedConnection(Connection target, ConnectionHoldTracker.Lease lease) {
+            this.target = target;
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    if (closed) {
+                        return null;
+                    }
+                    closed = true;
+                    try {
+                        target.close();
+                    } finally {
+                        connectionHoldTracker.released(lease);
+                    }
+                    return null;
+                default:
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+            }
+        }
+    }
+}
@@ -16,6 +16,8 @@ public class FlightDto {
     private LocalDateTime departureTime;
     private LocalDateTime arrivalTime;
     private BigDecimal price;
+    private Integer totalSeatCount;
+    private Integer availableSeatCount;
 
     private List<SeatDto> avaliableSeats;
 
@@ -0,0 +1,27 @@
+package com.iyzico.challenge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the flight catalog: a flight with one of its available seats, or with {@code null} seat columns if
+ * it has none.
+ */
+@Getter
+@AllArgsConstructor
+public class FlightSeatRowDto {
+    private Long flightId;
+    private String flightName;
+    private String origin;
+    private String destination;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private BigDecimal price;
+    private Integer totalSeatCount;
+    private Integer availableSeatCount;
+    private Long seatId;
+    private String seatName;
+}
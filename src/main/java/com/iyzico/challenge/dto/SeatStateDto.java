@@ -0,0 +1,12 @@
+package com.iyzico.challenge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SeatStateDto {
+    private Long flightId;
+    private Long seatId;
+    private Boolean isReserved;
+}
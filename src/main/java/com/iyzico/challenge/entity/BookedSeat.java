@@ -3,6 +3,8 @@ package com.iyzico.challenge.entity;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -16,7 +18,9 @@ import java.time.LocalDateTime;
 public class BookedSeat {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "booked_seat_seq")
+    @GenericGenerator(name = "booked_seat_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "booked_seat_seq"))
     private Long id;
     @ManyToOne
     @JoinColumn(name = "seatId")
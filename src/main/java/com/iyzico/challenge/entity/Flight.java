@@ -4,8 +4,11 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
@@ -19,7 +22,9 @@ import java.time.LocalDateTime;
 public class Flight {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "flight_seq")
+    @GenericGenerator(name = "flight_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "flight_seq"))
     private Long flightId;
     private String flightName;
     private String origin;
@@ -27,6 +32,11 @@ public class Flight {
     private LocalDateTime departureTime;
     private LocalDateTime arrivalTime;
     private BigDecimal price;
+    // maintained only by the conditional updates in FlightRepository, so entity saves never overwrite them
+    @Column(updatable = false)
+    private Integer totalSeatCount = 0;
+    @Column(updatable = false)
+    private Integer availableSeatCount = 0;
     @CreationTimestamp
     private LocalDateTime createdAt;
     @UpdateTimestamp
@@ -0,0 +1,29 @@
+package com.iyzico.challenge.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a booking request made with an {@code Idempotency-Key}, so that a retry returns the same result
+ * instead of paying again.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    private String idempotencyKey;
+    private String requestFingerprint;
+    private Integer transactionCode;
+    private String message;
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,9 @@
 package com.iyzico.challenge.entity;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
@@ -9,10 +13,14 @@ import java.math.BigDecimal;
 public class Payment {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "payment_seq")
+    @GenericGenerator(name = "payment_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "payment_seq"))
     private Long id;
     private BigDecimal price;
     private String bankResponse;
+    @Column(unique = true)
+    private Long journalId;
 
     public Long getId() {
         return id;
@@ -37,4 +45,12 @@ public class Payment {
     public void setBankResponse(String bankResponse) {
         this.bankResponse = bankResponse;
     }
+
+    public Long getJournalId() {
+        return journalId;
+    }
+
+    public void setJournalId(Long journalId) {
+        this.journalId = journalId;
+    }
 }
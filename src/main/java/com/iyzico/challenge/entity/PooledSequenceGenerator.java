@@ -0,0 +1,33 @@
+package com.iyzico.challenge.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence generator with the {@code pooled} optimizer: one sequence call reserves a block of ids, so inserts do not
+ * need a key-generation round trip each and can be sent in JDBC batches. The block size of every sequence is read
+ * from {@code hibernate.id.allocation_size.<sequence_name>} ({@code spring.jpa.properties.*}) and defaults to
+ * {@link #DEFAULT_ALLOCATION_SIZE}; a size of 1 fetches every id from the database.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "com.iyzico.challenge.entity.PooledSequenceGenerator";
+    public static final String ALLOCATION_SIZE_PREFIX = "hibernate.id.allocation_size.";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        String sequenceName = params.getProperty(SEQUENCE_PARAM);
+        int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE_PREFIX + sequenceName,
+                serviceRegistry.getService(ConfigurationService.class).getSettings(), DEFAULT_ALLOCATION_SIZE);
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        params.setProperty(OPT_PARAM, "pooled");
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -4,6 +4,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
@@ -16,13 +18,18 @@ import java.time.LocalDateTime;
 public class Seat {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "seat_seq")
+    @GenericGenerator(name = "seat_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "seat_seq"))
     private Long seatId;
 
     private String seatName;
 
     private Boolean isReserved = false;
 
+    @Version
+    private Long version;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
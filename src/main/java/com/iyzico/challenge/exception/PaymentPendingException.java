@@ -0,0 +1,20 @@
+package com.iyzico.challenge.exception;
+
+import com.iyzico.challenge.response.DefaultMessageResponse;
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The request deadline passed while the payment of a booking was still running. The seat stays claimed for the
+ * payment, which completes {@link #getOutcome()} with the booking result once it has settled.
+ */
+@Getter
+public class PaymentPendingException extends BusinessException {
+    private final transient CompletableFuture<DefaultMessageResponse> outcome;
+
+    public PaymentPendingException(CompletableFuture<DefaultMessageResponse> outcome) {
+        super(TransactionCode.PAYMENT_TIMEOUT);
+        this.outcome = outcome;
+    }
+}
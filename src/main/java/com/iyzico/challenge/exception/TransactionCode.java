@@ -12,7 +12,16 @@ public enum TransactionCode {
     SEAT_ALREADY_EXISTS(104, "Seat already exists in the plane", HttpStatus.BAD_REQUEST),
     SEAT_NOT_FOUND(105, "Seat not found", HttpStatus.NOT_FOUND),
     ALREADY_BOOKED(106, "Seat already booked", HttpStatus.BAD_REQUEST),
-    PAYMENT_ERROR(107, "Payment error", HttpStatus.INTERNAL_SERVER_ERROR);
+    PAYMENT_ERROR(107, "Payment error", HttpStatus.INTERNAL_SERVER_ERROR),
+    PAYMENT_REJECTED(108, "Payment service is busy, try again later", HttpStatus.SERVICE_UNAVAILABLE),
+    FLIGHT_SOLD_OUT(109, "Flight is sold out", HttpStatus.BAD_REQUEST),
+    IDEMPOTENCY_KEY_REUSED(110, "Idempotency key was already used for a different request", HttpStatus.UNPROCESSABLE_ENTITY),
+    BOOKING_IN_PROGRESS(111, "Seat is being booked by another request", HttpStatus.CONFLICT),
+    SEAT_MODIFIED_CONCURRENTLY(112, "Seat was modified by another request, try again", HttpStatus.CONFLICT),
+    INVALID_SEAT_LIST(113, "Give either seatNames or layout with 1 to 1000 seats", HttpStatus.BAD_REQUEST),
+    PAYMENT_TIMEOUT(114, "Payment did not complete before the request deadline", HttpStatus.GATEWAY_TIMEOUT),
+    BOOKING_NOT_FOUND(115, "Booking not found", HttpStatus.NOT_FOUND),
+    BOOKING_NOT_RECORDED(116, "Payment received but the booking could not be stored yet, it will be reconciled", HttpStatus.ACCEPTED);
 
     private final int id;
     private final String code;
@@ -23,4 +32,13 @@ public enum TransactionCode {
         this.code = code;
         this.httpStatus = httpStatus;
     }
+
+    public static TransactionCode fromId(int id) {
+        for (TransactionCode transactionCode : values()) {
+            if (transactionCode.id == id) {
+                return transactionCode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown transaction code " + id);
+    }
 }
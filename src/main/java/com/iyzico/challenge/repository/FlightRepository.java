@@ -1,13 +1,95 @@
 package com.iyzico.challenge.repository;
 
+import com.iyzico.challenge.dto.FlightSeatRowDto;
 import com.iyzico.challenge.entity.Flight;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FlightRepository extends JpaRepository<Flight, Long> {
 
     Optional<Flight> findByFlightName(String flightName);
+
+    @Query("select new com.iyzico.challenge.dto.FlightSeatRowDto(f.flightId, f.flightName, f.origin, f.destination, " +
+            "f.departureTime, f.arrivalTime, f.price, f.totalSeatCount, f.availableSeatCount, s.seatId, s.seatName) " +
+            "from Flight f left join Seat s on s.flight = f and s.isReserved = false " +
+            "order by f.flightId, s.seatId")
+    List<FlightSeatRowDto> findAllWithAvailableSeats();
+
+    @Query("select new com.iyzico.challenge.dto.FlightSeatRowDto(f.flightId, f.flightName, f.origin, f.destination, " +
+            "f.departureTime, f.arrivalTime, f.price, f.totalSeatCount, f.availableSeatCount, s.seatId, s.seatName) " +
+            "from Flight f left join Seat s on s.flight = f and s.isReserved = false " +
+            "where f.flightId in :flightIds " +
+            "order by f.flightId, s.seatId")
+    List<FlightSeatRowDto> findWithAvailableSeatsByFlightIds(@Param("flightIds") Collection<Long> flightIds);
+
+    /**
+     * Ids of the flights after {@code afterFlightId} in id order, a page of the catalog for keyset paging.
+     */
+    @Query("select f.flightId from Flight f where f.flightId > :afterFlightId order by f.flightId")
+    List<Long> findFlightIdsAfter(@Param("afterFlightId") Long afterFlightId, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("update Flight f set f.totalSeatCount = f.totalSeatCount + 1, f.availableSeatCount = f.availableSeatCount + 1 " +
+            "where f.flightId = :flightId")
+    int addAvailableSeat(@Param("flightId") Long flightId);
+
+    @Modifying
+    @Transactional
+    @Query("update Flight f set f.totalSeatCount = f.totalSeatCount + :count, f.availableSeatCount = f.availableSeatCount + :count " +
+            "where f.flightId = :flightId")
+    int addAvailableSeats(@Param("flightId") Long flightId, @Param("count") int count);
+
+    @Modifying
+    @Transactional
+    @Query("update Flight f set f.totalSeatCount = f.totalSeatCount - 1, f.availableSeatCount = f.availableSeatCount - 1 " +
+            "where f.flightId = :flightId and f.availableSeatCount > 0")
+    int removeAvailableSeat(@Param("flightId") Long flightId);
+
+    @Modifying
+    @Transactional
+    @Query("update Flight f set f.totalSeatCount = f.totalSeatCount - 1 " +
+            "where f.flightId = :flightId and f.totalSeatCount > f.availableSeatCount")
+    int removeReservedSeat(@Param("flightId") Long flightId);
+
+    /**
+     * Takes one seat off the available count. Returns 0 if the count was already 0.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Flight f set f.availableSeatCount = f.availableSeatCount - 1 " +
+            "where f.flightId = :flightId and f.availableSeatCount > 0")
+    int reserveAvailableSeat(@Param("flightId") Long flightId);
+
+    /**
+     * Puts a released seat back on the available count. Returns 0 if every seat was already counted as available.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Flight f set f.availableSeatCount = f.availableSeatCount + 1 " +
+            "where f.flightId = :flightId and f.availableSeatCount < f.totalSeatCount")
+    int releaseReservedSeat(@Param("flightId") Long flightId);
+
+    /**
+     * Recomputes the seat counts of every flight whose counts differ from its seat rows and returns how many
+     * flights were corrected.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Flight f set " +
+            "f.totalSeatCount = (select count(s) from Seat s where s.flight = f), " +
+            "f.availableSeatCount = (select count(s) from Seat s where s.flight = f and s.isReserved = false) " +
+            "where f.totalSeatCount <> (select count(s) from Seat s where s.flight = f) " +
+            "or f.availableSeatCount <> (select count(s) from Seat s where s.flight = f and s.isReserved = false)")
+    int recomputeSeatCounts();
 }
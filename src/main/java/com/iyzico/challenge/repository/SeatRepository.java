@@ -1,10 +1,16 @@
 package com.iyzico.challenge.repository;
 
+import com.iyzico.challenge.dto.SeatStateDto;
 import com.iyzico.challenge.entity.Flight;
 import com.iyzico.challenge.entity.Seat;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +22,29 @@ public interface SeatRepository extends JpaRepository<Seat, Long> {
     Optional<Seat> findBySeatIdAndFlight(Long seatId, Flight flight);
 
     List<Seat> findAllByFlightAndIsReservedFalse(Flight flight);
+
+    @Query("select s.seatName from Seat s where s.flight = :flight and s.seatName in :seatNames")
+    List<String> findSeatNamesByFlightAndSeatNameIn(@Param("flight") Flight flight, @Param("seatNames") Collection<String> seatNames);
+
+    @Query("select new com.iyzico.challenge.dto.SeatStateDto(s.flight.flightId, s.seatId, s.isReserved) from Seat s")
+    List<SeatStateDto> findAllSeatStates();
+
+    /**
+     * Reserves the seat if it is still free and returns the number of claimed rows; {@code 0} means the seat does
+     * not exist in the flight or is already reserved.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Seat s set s.isReserved = true, s.version = s.version + 1, s.updatedAt = current_timestamp " +
+            "where s.seatId = :seatId and s.flight.flightId = :flightId and s.isReserved = false")
+    int claimSeat(@Param("flightId") Long flightId, @Param("seatId") Long seatId);
+
+    /**
+     * Undoes {@link #claimSeat(Long, Long)} when the payment for the seat failed.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Seat s set s.isReserved = false, s.version = s.version + 1, s.updatedAt = current_timestamp " +
+            "where s.seatId = :seatId and s.flight.flightId = :flightId and s.isReserved = true")
+    int releaseSeat(@Param("flightId") Long flightId, @Param("seatId") Long seatId);
 }
@@ -0,0 +1,18 @@
+package com.iyzico.challenge.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.Valid;
+import java.util.List;
+
+/**
+ * Seats to add to a flight in one call, either as explicit {@code seatNames} or as a {@code layout}.
+ */
+@Getter
+@Setter
+public class BulkSeatRequest {
+    private List<String> seatNames;
+    @Valid
+    private SeatLayoutRequest layout;
+}
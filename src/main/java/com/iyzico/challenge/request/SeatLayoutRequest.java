@@ -0,0 +1,27 @@
+package com.iyzico.challenge.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+
+/**
+ * Cabin layout of {@code rows} rows with one seat per letter, e.g. 30 rows of {@code ABCDEF} for 1A to 30F.
+ */
+@Getter
+@Setter
+public class SeatLayoutRequest {
+    @Min(value = 1, message = "firstRow field must be at least 1")
+    private Integer firstRow = 1;
+    @NotNull(message = "rows field cannot be empty")
+    @Min(value = 1, message = "rows field must be at least 1")
+    @Max(value = 100, message = "rows field cannot be more than 100")
+    private Integer rows;
+    @NotBlank(message = "letters field cannot be empty")
+    @Pattern(regexp = "^[A-Z]{1,10}$", message = "letters field must be 1 to 10 upper case letters")
+    private String letters;
+}
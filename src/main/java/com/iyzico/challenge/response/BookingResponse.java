@@ -0,0 +1,9 @@
+package com.iyzico.challenge.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class BookingResponse extends BaseResponse<BookingResponseBody>{
+}
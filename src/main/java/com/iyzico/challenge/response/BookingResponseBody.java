@@ -0,0 +1,17 @@
+package com.iyzico.challenge.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class BookingResponseBody {
+    private Long bookingId;
+    private Long flightId;
+    private Long seatId;
+    // PENDING, CONFIRMED or FAILED
+    private String state;
+    // transaction code of a failed booking
+    private Integer failureCode;
+    private String message;
+}
@@ -0,0 +1,9 @@
+package com.iyzico.challenge.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class BulkSeatResponse extends BaseResponse<BulkSeatResponseBody> {
+}
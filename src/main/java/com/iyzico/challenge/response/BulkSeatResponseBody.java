@@ -0,0 +1,13 @@
+package com.iyzico.challenge.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+public class BulkSeatResponseBody {
+    private List<Long> seatIds;
+    private String message;
+}
@@ -0,0 +1,140 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.exception.BusinessException;
+import com.iyzico.challenge.exception.TransactionCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers for the stages of a booking, tagged with the {@link TransactionCode} the stage ended with, or
+ * {@value #UNEXPECTED} for exceptions that are not {@link BusinessException}s. The count of a timer is the number
+ * of outcomes, so no separate counters are kept. Timers are created on first use and cached, so recording costs a
+ * map lookup and no meter registration.
+ */
+@Service
+public class BookingMetrics {
+
+    public static final String BOOKING = "booking.requests";
+    public static final String PAYMENT = "booking.payment";
+    public static final String PERSIST = "booking.persist";
+    public static final String BANK_CALL = "bank.pay";
+    public static final String JOURNAL_APPEND = "payment.journal.append";
+
+    public static final String BOOK = "book";
+    public static final String BOOK_WITH_IYZICO = "book-iyzico";
+    public static final String BOOK_ASYNC = "book-async";
+    public static final String BANK = "bank";
+    public static final String IYZICO = "iyzico";
+    public static final String UNEXPECTED = "UNEXPECTED";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, OutcomeTimers> bookingTimers = new HashMap<>();
+    private final Map<String, OutcomeTimers> paymentTimers = new HashMap<>();
+    private final OutcomeTimers persistTimers;
+    private final Map<String, Timer> bankCallTimers = new ConcurrentHashMap<>();
+    private final Timer journalAppendTimer;
+
+    public BookingMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (String operation : new String[]{BOOK, BOOK_WITH_IYZICO, BOOK_ASYNC}) {
+            bookingTimers.put(operation, new OutcomeTimers(BOOKING, "operation", operation, "Bookings by outcome"));
+        }
+        for (String gateway : new String[]{BANK, IYZICO}) {
+            paymentTimers.put(gateway, new OutcomeTimers(PAYMENT, "gateway", gateway,
+                    "Payment step of a booking, including the wait for a payment thread"));
+        }
+        this.persistTimers = new OutcomeTimers(PERSIST, "stage", "booked-seat", "Writes of a paid booking");
+        this.journalAppendTimer = Timer.builder(JOURNAL_APPEND)
+                .description("Time to append a bank response to the payment journal, including the fsync")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a whole booking and records it under {@value #BOOKING}, tagged with the {@code operation} and outcome.
+     */
+    public <T> T timeBooking(String operation, Supplier<T> booking) {
+        return outcomeTimers(bookingTimers, operation).time(booking);
+    }
+
+    /**
+     * Runs the payment step of a booking and records it under {@value #PAYMENT}, tagged with the {@code gateway}
+     * and outcome.
+     */
+    public <T> T timePayment(String gateway, Supplier<T> payment) {
+        return outcomeTimers(paymentTimers, gateway).time(payment);
+    }
+
+    /**
+     * Runs the writes after a successful payment and records them under {@value #PERSIST}.
+     */
+    public <T> T timePersist(Supplier<T> persist) {
+        return persistTimers.time(persist);
+    }
+
+    /**
+     * Records a call of {@link BankService#pay}, tagged with the bank's result code.
+     */
+    public void recordBankCall(String result, long nanos) {
+        bankCallTimers.computeIfAbsent(result, key -> Timer.builder(BANK_CALL)
+                .description("Bank calls by result code")
+                .tag("result", key)
+                .register(meterRegistry)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordJournalAppend(long nanos) {
+        journalAppendTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static OutcomeTimers outcomeTimers(Map<String, OutcomeTimers> timers, String tagValue) {
+        OutcomeTimers outcomeTimers = timers.get(tagValue);
+        if (outcomeTimers == null) {
+            throw new IllegalArgumentException("No timers for " + tagValue);
+        }
+        return outcomeTimers;
+    }
+
+    private final class OutcomeTimers {
+        private final String name;
+        private final String tagKey;
+        private final String tagValue;
+        private final String description;
+        private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+        private OutcomeTimers(String name, String tagKey, String tagValue, String description) {
+            this.name = name;
+            this.tagKey = tagKey;
+            this.tagValue = tagValue;
+            this.description = description;
+        }
+
+        private <T> T time(Supplier<T> action) {
+            long start = System.nanoTime();
+            String outcome = UNEXPECTED;
+            try {
+                T result = action.get();
+                outcome = TransactionCode.SUCCESS.name();
+                return result;
+            } catch (BusinessException e) {
+                outcome = e.getTransactionCode().name();
+                throw e;
+            } finally {
+                timer(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Timer timer(String outcome) {
+            return timers.computeIfAbsent(outcome, key -> Timer.builder(name)
+                    .description(description)
+                    .tag(tagKey, tagValue)
+                    .tag("outcome", key)
+                    .register(meterRegistry));
+        }
+    }
+}
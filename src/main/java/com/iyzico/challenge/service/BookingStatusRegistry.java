@@ -0,0 +1,144 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.exception.BusinessException;
+import com.iyzico.challenge.exception.TransactionCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory state of asynchronous bookings. Booking ids are sequential and index a ring of parallel primitive
+ * arrays, about 30 bytes per booking and no object per entry; a slot is reused once its booking completed and
+ * {@code capacity} newer bookings were made, after which the old id is reported as unknown. Waiters registered
+ * with {@link #whenDone} run once the booking is confirmed or failed, for long polling.
+ */
+@Service
+@Slf4j
+public class BookingStatusRegistry {
+
+    public enum State {
+        PENDING, CONFIRMED, FAILED
+    }
+
+    private static final byte PENDING = 1;
+    private static final byte CONFIRMED = 2;
+    private static final byte FAILED = 3;
+
+    private final int mask;
+    private final long[] bookingIds;
+    private final long[] flightIds;
+    private final long[] seatIds;
+    private final byte[] states;
+    private final short[] failureCodes;
+    private final Map<Long, List<Runnable>> waiters = new HashMap<>();
+    private long nextBookingId = 1;
+
+    public BookingStatusRegistry(@Value("${booking.async.capacity:65536}") int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.mask = slots - 1;
+        this.bookingIds = new long[slots];
+        this.flightIds = new long[slots];
+        this.seatIds = new long[slots];
+        this.states = new byte[slots];
+        this.failureCodes = new short[slots];
+    }
+
+    /**
+     * @return the id of a new {@link State#PENDING} booking
+     * @throws BusinessException {@link TransactionCode#PAYMENT_REJECTED} when the slot is taken by a booking that is
+     *                           still pending, i.e. {@code capacity} bookings are in flight
+     */
+    public synchronized long register(long flightId, long seatId) {
+        long bookingId = nextBookingId;
+        int slot = (int) (bookingId & mask);
+        if (states[slot] == PENDING) {
+            log.error("Booking " + bookingId + " rejected, " + (mask + 1) + " bookings are pending");
+            throw new BusinessException(TransactionCode.PAYMENT_REJECTED);
+        }
+        nextBookingId++;
+        bookingIds[slot] = bookingId;
+        flightIds[slot] = flightId;
+        seatIds[slot] = seatId;
+        states[slot] = PENDING;
+        failureCodes[slot] = 0;
+        return bookingId;
+    }
+
+    public void confirm(long bookingId) {
+        complete(bookingId, CONFIRMED, null);
+    }
+
+    public void fail(long bookingId, TransactionCode failure) {
+        complete(bookingId, FAILED, failure);
+    }
+
+    /**
+     * @return the booking, or {@code null} when the id is unknown or its slot was reused
+     */
+    public synchronized Booking get(long bookingId) {
+        int slot = (int) (bookingId & mask);
+        if (bookingId <= 0 || bookingIds[slot] != bookingId) {
+            return null;
+        }
+        TransactionCode failure = failureCodes[slot] == 0 ? null : TransactionCode.fromId(failureCodes[slot]);
+        return new Booking(bookingId, flightIds[slot], seatIds[slot], state(states[slot]), failure);
+    }
+
+    /**
+     * Runs {@code waiter} once the booking is no longer pending; right away when it already is not, or is unknown.
+     */
+    public void whenDone(long bookingId, Runnable waiter) {
+        synchronized (this) {
+            int slot = (int) (bookingId & mask);
+            if (bookingIds[slot] == bookingId && states[slot] == PENDING) {
+                waiters.computeIfAbsent(bookingId, id -> new ArrayList<>()).add(waiter);
+                return;
+            }
+        }
+        waiter.run();
+    }
+
+    private void complete(long bookingId, byte state, TransactionCode failure) {
+        List<Runnable> done;
+        synchronized (this) {
+            int slot = (int) (bookingId & mask);
+            if (bookingIds[slot] != bookingId || states[slot] != PENDING) {
+                throw new IllegalStateException("Booking " + bookingId + " is not pending");
+            }
+            states[slot] = state;
+            failureCodes[slot] = failure == null ? 0 : (short) failure.getId();
+            done = waiters.remove(bookingId);
+        }
+        if (done != null) {
+            done.forEach(Runnable::run);
+        }
+    }
+
+    private static State state(byte state) {
+        switch (state) {
+            case PENDING:
+                return State.PENDING;
+            case CONFIRMED:
+                return State.CONFIRMED;
+            default:
+                return State.FAILED;
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Booking {
+        private final long bookingId;
+        private final long flightId;
+        private final long seatId;
+        private final State state;
+        private final TransactionCode failure;
+    }
+}
@@ -1,44 +1,81 @@
 package com.iyzico.challenge.service;
 
+import com.iyzico.challenge.concurrent.Bulkhead;
+import com.iyzico.challenge.concurrent.CircuitBreaker;
+import com.iyzico.challenge.concurrent.Deadline;
 import com.iyzico.challenge.dto.FlightDto;
+import com.iyzico.challenge.dto.FlightSeatRowDto;
 import com.iyzico.challenge.dto.SeatDto;
 import com.iyzico.challenge.entity.BookedSeat;
 import com.iyzico.challenge.entity.Flight;
 import com.iyzico.challenge.entity.Seat;
 import com.iyzico.challenge.exception.BusinessException;
+import com.iyzico.challenge.exception.PaymentPendingException;
 import com.iyzico.challenge.exception.Status;
 import com.iyzico.challenge.exception.TransactionCode;
-import com.iyzico.challenge.repository.BookedSeatRepository;
 import com.iyzico.challenge.repository.FlightRepository;
 import com.iyzico.challenge.repository.SeatRepository;
+import com.iyzico.challenge.request.BulkSeatRequest;
 import com.iyzico.challenge.request.ClientRequest;
 import com.iyzico.challenge.request.FlightRequest;
+import com.iyzico.challenge.request.SeatLayoutRequest;
 import com.iyzico.challenge.request.SeatRequest;
 import com.iyzico.challenge.response.*;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DefaultFlightService implements FlightService {
 
+    private static final int MAX_SEATS_PER_REQUEST = 1000;
+    private static final int STREAM_PAGE_FLIGHTS = 100;
+    private static final int PERSIST_ATTEMPTS = 3;
+    private static final long PERSIST_RETRY_BACKOFF_MILLIS = 50;
+
     private final FlightRepository flightRepository;
     private final SeatRepository seatRepository;
+    private final SeatReservations seatReservations;
     private final PaymentServiceClients paymentServiceClients;
-    private final BookedSeatRepository bookedSeatRepository;
     private final RealPaymentService realPaymentService;
+    private final SeatInventory seatInventory;
+    private final FlightCatalogCache flightCatalogCache;
+    private final IdempotencyService idempotencyService;
+    private final BookingMetrics bookingMetrics;
+    private final PaymentGuards paymentGuards;
+    private final PaymentExecutor paymentExecutor;
+    private final RequestDeadlines requestDeadlines;
+    private final BookingStatusRegistry bookingStatusRegistry;
+    private final FlightCatalogCache.Loader catalogLoader = new CatalogLoader();
 
     @Override
     public FlightResponse createFlight(FlightRequest flightRequest) {
@@ -48,6 +85,7 @@ public class DefaultFlightService implements FlightService {
 
         Flight flight = new Flight();
         mapFlight(flightRequest, flight);
+        flightCatalogCache.invalidateCatalog();
 
         FlightResponse flightResponse = new FlightResponse();
         FlightResponseBody body = new FlightResponseBody();
@@ -63,6 +101,8 @@ public class DefaultFlightService implements FlightService {
     public DefaultMessageResponse deleteFlight(Long flightId) {
         Flight flight = flightRepository.findById(flightId).orElseThrow(() -> new BusinessException(TransactionCode.FLIGHT_NOT_FOUND));
         flightRepository.delete(flight);
+        seatInventory.removeFlight(flightId);
+        flightCatalogCache.invalidateCatalog();
 
         DefaultMessageResponse defaultMessageResponse = new DefaultMessageResponse();
         DefaultMessageBody body = new DefaultMessageBody("Flight deleted successfully");
@@ -77,6 +117,7 @@ public class DefaultFlightService implements FlightService {
         Flight flight = flightRepository.findById(flightId).orElseThrow(() -> new BusinessException(TransactionCode.FLIGHT_NOT_FOUND));
 
         mapFlight(flightRequest, flight);
+        flightCatalogCache.invalidateFlight(flightId);
 
         DefaultMessageResponse defaultMessageResponse = new DefaultMessageResponse();
         DefaultMessageBody body = new DefaultMessageBody("Flight " + flightId + " updated successfully");
@@ -100,6 +141,9 @@ public class DefaultFlightService implements FlightService {
         seat.setFlight(flight);
 
         seatRepository.save(seat);
+        seatInventory.register(flight.getFlightId(), seat.getSeatId(), false);
+        flightRepository.addAvailableSeat(flight.getFlightId());
+        flightCatalogCache.invalidateFlight(flight.getFlightId());
 
         SeatResponse seatResponse = new SeatResponse();
         SeatResponseBody body = new SeatResponseBody();
@@ -111,12 +155,69 @@ public class DefaultFlightService implements FlightService {
         return seatResponse;
     }
 
+    /**
+     * Adds all seats with one duplicate check and batched inserts in a single transaction, instead of three round
+     * trips per seat. The seat index and the catalog cache only learn about the seats once the transaction has
+     * committed, so a rollback leaves no bookable seats behind and a catalog reload cannot cache the old rows.
+     */
+    @Override
+    @Transactional
+    public BulkSeatResponse addSeats(Long flightId, BulkSeatRequest bulkSeatRequest) {
+        Flight flight = flightRepository.findById(flightId).orElseThrow(() -> new BusinessException(TransactionCode.FLIGHT_NOT_FOUND));
+        List<String> seatNames = seatNames(bulkSeatRequest);
+        if (new HashSet<>(seatNames).size() != seatNames.size()) {
+            log.error("Seat list for flight " + flightId + " contains duplicate names");
+            throw new BusinessException(TransactionCode.SEAT_ALREADY_EXISTS);
+        }
+        List<String> existing = seatRepository.findSeatNamesByFlightAndSeatNameIn(flight, seatNames);
+        if (!existing.isEmpty()) {
+            log.error("Seats " + existing + " already exist in flight " + flightId);
+            throw new BusinessException(TransactionCode.SEAT_ALREADY_EXISTS);
+        }
+
+        List<Seat> seats = new ArrayList<>(seatNames.size());
+        for (String seatName : seatNames) {
+            Seat seat = new Seat();
+            seat.setSeatName(seatName);
+            seat.setFlight(flight);
+            seats.add(seat);
+        }
+        seatRepository.saveAll(seats);
+        flightRepository.addAvailableSeats(flightId, seats.size());
+        List<Long> seatIds = new ArrayList<>(seats.size());
+        for (Seat seat : seats) {
+            seatIds.add(seat.getSeatId());
+        }
+        afterCommit(() -> {
+            for (Long seatId : seatIds) {
+                seatInventory.register(flightId, seatId, false);
+            }
+            flightCatalogCache.invalidateFlight(flightId);
+        });
+
+        BulkSeatResponse bulkSeatResponse = new BulkSeatResponse();
+        BulkSeatResponseBody body = new BulkSeatResponseBody();
+        body.setSeatIds(seatIds);
+        body.setMessage(seats.size() + " seats added to flight " + flightId + " successfully");
+        bulkSeatResponse.setBody(new BaseBody<>(body));
+        bulkSeatResponse.setStatus(new Status(TransactionCode.SUCCESS));
+        log.info(seats.size() + " seats added to flight " + flightId + " successfully");
+        return bulkSeatResponse;
+    }
+
     @Override
     public DefaultMessageResponse deleteSeat(Long flightId, Long seatId) {
         Flight flight = flightRepository.findById(flightId).orElseThrow(() -> new BusinessException(TransactionCode.FLIGHT_NOT_FOUND));
         Seat seat = seatRepository.findBySeatIdAndFlight(seatId, flight).orElseThrow(() -> new BusinessException(TransactionCode.SEAT_NOT_FOUND));
 
-        seatRepository.delete(seat);
+        saveVersioned(() -> seatRepository.delete(seat), seatId);
+        seatInventory.remove(flightId, seatId);
+        if (Boolean.TRUE.equals(seat.getIsReserved())) {
+            flightRepository.removeReservedSeat(flightId);
+        } else {
+            flightRepository.removeAvailableSeat(flightId);
+        }
+        flightCatalogCache.invalidateFlight(flightId);
 
         DefaultMessageResponse defaultMessageResponse = new DefaultMessageResponse();
         DefaultMessageBody body = new DefaultMessageBody("Seat " + seatId + " deleted successfully");
@@ -132,7 +233,8 @@ public class DefaultFlightService implements FlightService {
         Seat seat = seatRepository.findBySeatIdAndFlight(seatId, flight).orElseThrow(() -> new BusinessException(TransactionCode.SEAT_NOT_FOUND));
 
         seat.setSeatName(seatRequest.getSeatName());
-        seatRepository.save(seat);
+        saveVersioned(() -> seatRepository.save(seat), seatId);
+        flightCatalogCache.invalidateFlight(flightId);
 
         DefaultMessageResponse defaultMessageResponse = new DefaultMessageResponse();
         DefaultMessageBody body = new DefaultMessageBody("Seat " + seatId + " updated for flight " + flightId + " successfully");
@@ -144,89 +246,285 @@ public class DefaultFlightService implements FlightService {
 
     @Override
     public DetailFlightResponse getAllFlights() {
-        List<Flight> flights = flightRepository.findAll();
-
         DetailFlightResponse detailFlightResponse = new DetailFlightResponse();
         DetailFlightResponseBody body = new DetailFlightResponseBody();
-        List<FlightDto> flightDtoList = new ArrayList<>();
-        for (Flight flight : flights) {
-            FlightDto flightDto = new FlightDto();
-            BeanUtils.copyProperties(flight, flightDto);
-            List<Seat> seats = seatRepository.findAllByFlightAndIsReservedFalse(flight);
-            List<SeatDto> seatDtoList = new ArrayList<>();
-            for (Seat seat : seats) {
-                SeatDto seatDto = new SeatDto();
-                BeanUtils.copyProperties(seat, seatDto);
-                seatDtoList.add(seatDto);
-            }
-            flightDto.setAvaliableSeats(seatDtoList);
-            flightDtoList.add(flightDto);
-        }
-        body.setFlightList(flightDtoList);
+        body.setFlightList(flightCatalogCache.getCatalog(catalogLoader));
         detailFlightResponse.setBody(new BaseBody<>(body));
         detailFlightResponse.setStatus(new Status(TransactionCode.SUCCESS));
         return detailFlightResponse;
     }
 
+    /**
+     * Hands over the catalog one flight at a time, reading it in pages of {@value #STREAM_PAGE_FLIGHTS} flights
+     * ordered by id. Each page is read with its own short queries and handed over after its connection went back to
+     * the pool, so a slow client does not hold one of the few pool connections while its response is written. The
+     * pages are not one snapshot: a flight changed during the stream shows its state at the time its page was read.
+     */
+    @Override
+    public void streamAllFlights(Consumer<FlightDto> flightConsumer) {
+        Long afterFlightId = 0L;
+        while (true) {
+            List<Long> flightIds = flightRepository.findFlightIdsAfter(afterFlightId, PageRequest.of(0, STREAM_PAGE_FLIGHTS));
+            if (flightIds.isEmpty()) {
+                return;
+            }
+            List<FlightDto> page = new ArrayList<>(flightIds.size());
+            groupByFlight(flightRepository.findWithAvailableSeatsByFlightIds(flightIds).iterator(),
+                    (flightId, flightDto) -> page.add(flightDto));
+            page.forEach(flightConsumer);
+            afterFlightId = flightIds.get(flightIds.size() - 1);
+        }
+    }
+
+    @Override
+    public DefaultMessageResponse bookSeat(Long flightId, Long seatId, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return bookSeat(flightId, seatId);
+        }
+        return idempotencyService.execute(idempotencyKey, "book:" + flightId + ":" + seatId, () -> bookSeat(flightId, seatId));
+    }
+
+    @Override
+    public DefaultMessageResponse bookSeatWithIyzico(Long flightId, Long seatId, ClientRequest clientRequest, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return bookSeatWithIyzico(flightId, seatId, clientRequest);
+        }
+        return idempotencyService.execute(idempotencyKey, "iyzico:" + flightId + ":" + seatId,
+                () -> bookSeatWithIyzico(flightId, seatId, clientRequest));
+    }
+
     @Override
     public DefaultMessageResponse bookSeat(Long flightId, Long seatId) {
-        Flight flight = flightRepository.findById(flightId).orElseThrow(() -> new BusinessException(TransactionCode.FLIGHT_NOT_FOUND));
-        Seat seat = seatRepository.findBySeatIdAndFlight(seatId, flight).orElseThrow(() -> new BusinessException(TransactionCode.SEAT_NOT_FOUND));
+        Deadline deadline = requestDeadlines.current();
+        return bookingMetrics.timeBooking(BookingMetrics.BOOK, () -> doBookSeat(flightId, seatId, deadline));
+    }
+
+    @Override
+    public DefaultMessageResponse bookSeatWithIyzico(Long flightId, Long seatId, ClientRequest clientRequest) {
+        Deadline deadline = requestDeadlines.current();
+        return bookingMetrics.timeBooking(BookingMetrics.BOOK_WITH_IYZICO, () -> doBookSeatWithIyzico(flightId, seatId, clientRequest, deadline));
+    }
+
+    @Override
+    public BookingResponse bookSeatAsync(Long flightId, Long seatId) {
+        return bookingMetrics.timeBooking(BookingMetrics.BOOK_ASYNC, () -> doBookSeatAsync(flightId, seatId));
+    }
+
+    @Override
+    public BookingResponse getBooking(Long bookingId) {
+        BookingStatusRegistry.Booking booking = bookingStatusRegistry.get(bookingId);
+        if (booking == null) {
+            throw new BusinessException(TransactionCode.BOOKING_NOT_FOUND);
+        }
+        return bookingResponse(booking);
+    }
+
+    @Override
+    public void whenBookingDone(Long bookingId, Runnable callback) {
+        bookingStatusRegistry.whenDone(bookingId, callback);
+    }
+
+    private DefaultMessageResponse doBookSeat(Long flightId, Long seatId, Deadline deadline) {
+        checkCallPermitted(paymentGuards.getBankCircuitBreaker());
+        checkDeadline(deadline, "Booking");
+        SeatInventory.Hold hold = holdSeat(flightId, seatId);
         try {
-            if (Boolean.TRUE.equals(seat.getIsReserved())) {
-                log.error("Seat " + seatId + " already booked for flight " + flightId);
-                throw new BusinessException(TransactionCode.ALREADY_BOOKED);
+            Flight flight = findFlight(hold);
+            checkDeadline(deadline, "Seat claim");
+            claimSeat(hold, flight);
+            PaymentReceipt receipt = new PaymentReceipt();
+            try {
+                bookingMetrics.timePayment(BookingMetrics.BANK, () -> makePayment(flight.getPrice(), deadline, receipt));
+            } catch (PaymentInFlightException e) {
+                throw settleLater(e.getPayment(), hold, flight, receipt, status -> bookedResponse("Seat " + seatId + " booked successfully"));
+            } catch (RuntimeException e) {
+                releaseClaimedSeat(hold);
+                throw e;
             }
-            makePayment(flight.getPrice());
-            BookedSeat bookedSeat = new BookedSeat();
-            bookedSeat.setSeat(seat);
-            bookedSeat.setFlight(flight);
-            bookedSeatRepository.save(bookedSeat);
-            seat.setIsReserved(true);
-            seatRepository.save(seat);
-
-            DefaultMessageResponse defaultMessageResponse = new DefaultMessageResponse();
-            DefaultMessageBody body = new DefaultMessageBody("Seat " + seatId + " booked successfully");
-            defaultMessageResponse.setBody(new BaseBody<>(body));
-            defaultMessageResponse.setStatus(new Status(TransactionCode.SUCCESS));
-            log.info("Seat " + seat.getSeatName() + " booked successfully for flight id " + flight.getFlightId());
-            return defaultMessageResponse;
+            bookingMetrics.timePersist(() -> persistBooking(hold, flight, receipt.getJournalSequence()));
+            flightCatalogCache.invalidateFlight(flightId);
+
+            log.info("Seat " + seatId + " booked successfully for flight id " + flight.getFlightId());
+            return bookedResponse("Seat " + seatId + " booked successfully");
         }
         catch(DataIntegrityViolationException e){
+            seatInventory.confirm(hold);
             log.error("Seat " + seatId + " already booked for flight " + flightId);
             throw new BusinessException(TransactionCode.ALREADY_BOOKED);
         }
+        catch(PaymentPendingException e){
+            // the hold stays with the payment that is still running
+            throw e;
+        }
+        catch(RuntimeException e){
+            seatInventory.release(hold);
+            throw e;
+        }
 
     }
 
-    @Override
-    public DefaultMessageResponse bookSeatWithIyzico(Long flightId, Long seatId, ClientRequest clientRequest) {
-        Flight flight = flightRepository.findById(flightId).orElseThrow(() -> new BusinessException(TransactionCode.FLIGHT_NOT_FOUND));
-        Seat seat = seatRepository.findBySeatIdAndFlight(seatId, flight).orElseThrow(() -> new BusinessException(TransactionCode.SEAT_NOT_FOUND));
+    private DefaultMessageResponse doBookSeatWithIyzico(Long flightId, Long seatId, ClientRequest clientRequest, Deadline deadline) {
+        checkCallPermitted(paymentGuards.getIyzicoCircuitBreaker());
+        checkDeadline(deadline, "Booking");
+        SeatInventory.Hold hold = holdSeat(flightId, seatId);
         try {
-            if (Boolean.TRUE.equals(seat.getIsReserved())) {
-                log.error("Seat " + seatId + " already booked for flight " + flightId);
-                throw new BusinessException(TransactionCode.ALREADY_BOOKED);
+            Flight flight = findFlight(hold);
+            checkDeadline(deadline, "Seat claim");
+            claimSeat(hold, flight);
+            // Iyzico payments are not journaled, so the receipt stays empty
+            PaymentReceipt receipt = new PaymentReceipt();
+            String paymentStatus;
+            try {
+                paymentStatus = bookingMetrics.timePayment(BookingMetrics.IYZICO, () -> payWithIyzico(flight.getPrice(), clientRequest, deadline));
+            } catch (PaymentInFlightException e) {
+                throw settleLater(e.getPayment(), hold, flight, receipt, status -> bookedResponse("Iyzico payment service status: " + status));
+            } catch (RuntimeException e) {
+                releaseClaimedSeat(hold);
+                throw e;
             }
-            String paymentStatus = realPaymentService.pay(flight.getPrice(), clientRequest);
-            BookedSeat bookedSeat = new BookedSeat();
-            bookedSeat.setSeat(seat);
-            bookedSeat.setFlight(flight);
-            bookedSeatRepository.save(bookedSeat);
-            seat.setIsReserved(true);
-            seatRepository.save(seat);
-
-            DefaultMessageResponse defaultMessageResponse = new DefaultMessageResponse();
-            DefaultMessageBody body = new DefaultMessageBody("Iyzico payment service status: " + paymentStatus);
-            defaultMessageResponse.setBody(new BaseBody<>(body));
-            defaultMessageResponse.setStatus(new Status(TransactionCode.SUCCESS));
-            log.info("Seat " + seat.getSeatName() + " booked successfully for flight id " + flight.getFlightId());
-            return defaultMessageResponse;
+            bookingMetrics.timePersist(() -> persistBooking(hold, flight, receipt.getJournalSequence()));
+            flightCatalogCache.invalidateFlight(flightId);
+
+            log.info("Seat " + seatId + " booked successfully for flight id " + flight.getFlightId());
+            return bookedResponse("Iyzico payment service status: " + paymentStatus);
         }
         catch(DataIntegrityViolationException e){
+            seatInventory.confirm(hold);
             log.error("Seat " + seatId + " already booked for flight " + flightId);
             throw new BusinessException(TransactionCode.ALREADY_BOOKED);
         }
+        catch(PaymentPendingException e){
+            throw e;
+        }
+        catch(RuntimeException e){
+            seatInventory.release(hold);
+            throw e;
+        }
+    }
+
+    /**
+     * Holds and claims the seat like {@link #bookSeat(Long, Long)}, then returns while the payment runs on a payment
+     * thread. The payment gets its own default deadline, since the client no longer waits for it; a payment task
+     * still queued when it passes is dropped. A payment that has started keeps the booking pending until it
+     * completes, since the bank may still charge for the seat; its outcome is settled on a payment thread and
+     * confirms or fails the booking in the {@link BookingStatusRegistry}.
+     */
+    private BookingResponse doBookSeatAsync(Long flightId, Long seatId) {
+        checkCallPermitted(paymentGuards.getBankCircuitBreaker());
+        Deadline deadline = requestDeadlines.defaultDeadline();
+        SeatInventory.Hold hold = holdSeat(flightId, seatId);
+        Flight flight;
+        long bookingId;
+        PaymentReceipt receipt = new PaymentReceipt();
+        CompletableFuture<String> payment;
+        try {
+            flight = findFlight(hold);
+            claimSeat(hold, flight);
+            try {
+                bookingId = bookingStatusRegistry.register(flightId, seatId);
+            } catch (RuntimeException e) {
+                releaseClaimedSeat(hold);
+                throw e;
+            }
+            try {
+                payment = callBank(flight.getPrice(), deadline, receipt);
+            } catch (RuntimeException e) {
+                bookingStatusRegistry.fail(bookingId, e instanceof BusinessException
+                        ? ((BusinessException) e).getTransactionCode() : TransactionCode.PAYMENT_ERROR);
+                releaseClaimedSeat(hold);
+                throw e;
+            }
+        }
+        catch(RuntimeException e){
+            seatInventory.release(hold);
+            throw e;
+        }
+
+        payment.handleAsync((result, failure) -> {
+            settlePayment(hold, flight, receipt, failure);
+            return result;
+        }, paymentExecutor::execute).whenComplete((result, failure) -> completeAsyncBooking(bookingId, hold, flight, failure));
+
+        log.info("Seat " + seatId + " of flight " + flightId + " claimed for booking " + bookingId + ", payment pending");
+        return getBooking(bookingId);
+    }
+
+    private void completeAsyncBooking(long bookingId, SeatInventory.Hold hold, Flight flight, Throwable failure) {
+        if (failure == null) {
+            bookingStatusRegistry.confirm(bookingId);
+            log.info("Booking " + bookingId + " of seat " + hold.getSeatId() + " confirmed for flight id " + flight.getFlightId());
+            return;
+        }
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        log.error("Booking " + bookingId + " of seat " + hold.getSeatId() + " failed: " + cause.getMessage());
+        bookingStatusRegistry.fail(bookingId, cause instanceof BusinessException
+                ? ((BusinessException) cause).getTransactionCode() : TransactionCode.PAYMENT_ERROR);
+    }
+
+    /**
+     * Leaves the claimed seat and its hold to a payment that is still running when the request deadline passes.
+     * When the payment completes, a payment thread stores the booking or releases the seat; the returned exception
+     * answers the request with {@link TransactionCode#PAYMENT_TIMEOUT} and carries the eventual booking outcome.
+     */
+    private PaymentPendingException settleLater(CompletableFuture<String> payment, SeatInventory.Hold hold, Flight flight,
+                                                PaymentReceipt receipt, Function<String, DefaultMessageResponse> confirmation) {
+        log.warn("Seat " + hold.getSeatId() + " of flight " + hold.getFlightId() + " stays claimed until its timed out payment completes");
+        return new PaymentPendingException(payment.handleAsync((status, failure) -> {
+            settlePayment(hold, flight, receipt, failure);
+            return confirmation.apply(status);
+        }, paymentExecutor::execute));
+    }
+
+    /**
+     * Stores the booking of a payment that completed after its request returned, or releases the seat if the
+     * payment failed.
+     *
+     * @throws BusinessException with the outcome of a booking that did not go through
+     */
+    private void settlePayment(SeatInventory.Hold hold, Flight flight, PaymentReceipt receipt, Throwable failure) {
+        if (failure != null) {
+            TransactionCode transactionCode = paymentFailure(failure);
+            releaseClaimedSeat(hold);
+            seatInventory.release(hold);
+            throw new BusinessException(transactionCode);
+        }
+        try {
+            bookingMetrics.timePersist(() -> persistBooking(hold, flight, receipt.getJournalSequence()));
+        } catch (DataIntegrityViolationException e) {
+            seatInventory.confirm(hold);
+            log.error("Seat " + hold.getSeatId() + " already booked for flight " + flight.getFlightId());
+            throw new BusinessException(TransactionCode.ALREADY_BOOKED);
+        }
+        flightCatalogCache.invalidateFlight(flight.getFlightId());
+        log.info("Seat " + hold.getSeatId() + " booked for flight id " + flight.getFlightId() + " after its payment completed");
+    }
+
+    private static DefaultMessageResponse bookedResponse(String message) {
+        DefaultMessageResponse defaultMessageResponse = new DefaultMessageResponse();
+        DefaultMessageBody body = new DefaultMessageBody(message);
+        defaultMessageResponse.setBody(new BaseBody<>(body));
+        defaultMessageResponse.setStatus(new Status(TransactionCode.SUCCESS));
+        return defaultMessageResponse;
+    }
+
+    private BookingResponse bookingResponse(BookingStatusRegistry.Booking booking) {
+        BookingResponseBody body = new BookingResponseBody();
+        body.setBookingId(booking.getBookingId());
+        body.setFlightId(booking.getFlightId());
+        body.setSeatId(booking.getSeatId());
+        body.setState(booking.getState().name());
+        if (booking.getFailure() != null) {
+            body.setFailureCode(booking.getFailure().getId());
+            body.setMessage(booking.getFailure().getCode());
+        } else if (booking.getState() == BookingStatusRegistry.State.PENDING) {
+            body.setMessage("Seat " + booking.getSeatId() + " claimed, payment pending");
+        } else {
+            body.setMessage("Seat " + booking.getSeatId() + " booked successfully");
+        }
+        BookingResponse bookingResponse = new BookingResponse();
+        bookingResponse.setBody(new BaseBody<>(body));
+        bookingResponse.setStatus(new Status(TransactionCode.SUCCESS));
+        return bookingResponse;
     }
 
     private void mapFlight(FlightRequest flightRequest, Flight flight) {
@@ -242,13 +540,329 @@ public class DefaultFlightService implements FlightService {
         flightRepository.save(flight);
     }
 
-    private void makePayment(BigDecimal price) {
-        CompletableFuture<String> future =  paymentServiceClients.call(price);
+    private List<String> seatNames(BulkSeatRequest bulkSeatRequest) {
+        List<String> seatNames = new ArrayList<>();
+        SeatLayoutRequest layout = bulkSeatRequest.getLayout();
+        if (layout != null && bulkSeatRequest.getSeatNames() == null) {
+            int firstRow = layout.getFirstRow() == null ? 1 : layout.getFirstRow();
+            for (int row = firstRow; row < firstRow + layout.getRows(); row++) {
+                for (char letter : layout.getLetters().toCharArray()) {
+                    seatNames.add(row + String.valueOf(letter));
+                }
+            }
+        } else if (layout == null && bulkSeatRequest.getSeatNames() != null) {
+            for (String seatName : bulkSeatRequest.getSeatNames()) {
+                if (seatName == null || seatName.trim().isEmpty()) {
+                    throw new BusinessException(TransactionCode.INVALID_SEAT_LIST);
+                }
+                seatNames.add(seatName);
+            }
+        }
+        if (seatNames.isEmpty() || seatNames.size() > MAX_SEATS_PER_REQUEST) {
+            log.error("Invalid seat list with " + seatNames.size() + " seats");
+            throw new BusinessException(TransactionCode.INVALID_SEAT_LIST);
+        }
+        return seatNames;
+    }
+
+    /**
+     * Claims the seat in the {@link SeatInventory} before anything is read from the database; concurrent
+     * contenders fail here without touching the database or the bank.
+     */
+    private SeatInventory.Hold holdSeat(Long flightId, Long seatId) {
+        try {
+            return seatInventory.tryHold(flightId, seatId);
+        } catch (BusinessException e) {
+            log.error("Seat " + seatId + " of flight " + flightId + " not bookable: " + e.getTransactionCode());
+            throw e;
+        }
+    }
+
+    private Flight findFlight(SeatInventory.Hold hold) {
+        Optional<Flight> flight = flightRepository.findById(hold.getFlightId());
+        if (!flight.isPresent()) {
+            seatInventory.discard(hold);
+            throw new BusinessException(TransactionCode.FLIGHT_NOT_FOUND);
+        }
+        try {
+            checkNotSoldOut(flight.get());
+        } catch (BusinessException e) {
+            // every seat of a sold out flight is reserved, so the held seat is not a real free seat
+            seatInventory.discard(hold);
+            throw e;
+        }
+        return flight.get();
+    }
+
+    /**
+     * Reserves the seat row with a single conditional update; the affected row count decides the winner across
+     * instances. The available seat count of the flight moves in the same transaction. The seat is only read when
+     * the claim fails, to tell a missing seat from a reserved one.
+     */
+    private void claimSeat(SeatInventory.Hold hold, Flight flight) {
+        if (seatReservations.claim(hold.getFlightId(), hold.getSeatId())) {
+            seatInventory.keep(hold);
+            return;
+        }
+        Optional<Seat> seat = seatRepository.findBySeatIdAndFlight(hold.getSeatId(), flight);
+        if (!seat.isPresent()) {
+            seatInventory.discard(hold);
+            throw new BusinessException(TransactionCode.SEAT_NOT_FOUND);
+        }
+        // reserved by another instance, outside the service or before the index caught up
+        seatInventory.confirm(hold);
+        log.error("Seat " + hold.getSeatId() + " already booked for flight " + hold.getFlightId());
+        throw new BusinessException(TransactionCode.ALREADY_BOOKED);
+    }
+
+    /**
+     * Frees the seat row claimed for a payment that failed and frees the seat in the index to match it. A catalog
+     * snapshot loaded while the seat was claimed hides it, so the flight is invalidated once the seat is free again.
+     */
+    private void releaseClaimedSeat(SeatInventory.Hold hold) {
         try {
-            future.get();
+            seatReservations.release(hold.getFlightId(), hold.getSeatId());
+            seatInventory.free(hold);
+            flightCatalogCache.invalidateFlight(hold.getFlightId());
+        } catch (RuntimeException e) {
+            log.error("Seat " + hold.getSeatId() + " of flight " + hold.getFlightId() + " could not be released after a failed payment: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs {@code action} after the current transaction has committed, or right away when there is none.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Rejects the booking from the flight row alone. Flights without a seat count are not known to be sold out,
+     * e.g. when their seats were inserted around the service and the repair job has not run yet.
+     */
+    private void checkNotSoldOut(Flight flight) {
+        if (flight.getTotalSeatCount() != null && flight.getTotalSeatCount() > 0
+                && Integer.valueOf(0).equals(flight.getAvailableSeatCount())) {
+            log.error("Flight " + flight.getFlightId() + " is sold out");
+            throw new BusinessException(TransactionCode.FLIGHT_SOLD_OUT);
+        }
+    }
+
+    /**
+     * Runs a write of a loaded seat. The seat's version makes the write fail instead of overwriting a booking that
+     * claimed the seat after it was read.
+     */
+    private void saveVersioned(Runnable write, Long seatId) {
+        try {
+            write.run();
+        } catch (OptimisticLockingFailureException e) {
+            log.error("Seat " + seatId + " was modified concurrently: " + e.getMessage());
+            throw new BusinessException(TransactionCode.SEAT_MODIFIED_CONCURRENTLY);
+        }
+    }
+
+    /**
+     * Stores the booking of a paid seat, retrying transient failures up to {@value #PERSIST_ATTEMPTS} times. If it
+     * still cannot be stored, the seat stays claimed, since it is paid for, and the booking is logged with the
+     * journal sequence of its payment for reconciliation; the client gets
+     * {@link TransactionCode#BOOKING_NOT_RECORDED} instead of an error that reads as if nothing was charged.
+     */
+    private BookedSeat persistBooking(SeatInventory.Hold hold, Flight flight, Long journalSequence) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                BookedSeat bookedSeat = seatReservations.book(flight, hold.getSeatId());
+                seatInventory.confirm(hold);
+                return bookedSeat;
+            } catch (DataIntegrityViolationException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                if (attempt < PERSIST_ATTEMPTS) {
+                    log.warn("Booking of seat " + hold.getSeatId() + " could not be stored, attempt " + attempt + ": " + e.getMessage());
+                    if (pauseBeforeRetry(attempt)) {
+                        continue;
+                    }
+                }
+                seatInventory.confirm(hold);
+                log.error("Booking of seat " + hold.getSeatId() + " of flight " + hold.getFlightId() + " is paid but not stored, "
+                        + "reconcile it with payment journal sequence " + journalSequence + ": " + e.getMessage());
+                throw new BusinessException(TransactionCode.BOOKING_NOT_RECORDED);
+            }
+        }
+    }
+
+    private static boolean pauseBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(PERSIST_RETRY_BACKOFF_MILLIS * attempt);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void groupByFlight(Iterator<FlightSeatRowDto> rows, BiConsumer<Long, FlightDto> flightConsumer) {
+        Long currentFlightId = null;
+        FlightDto flightDto = null;
+        while (rows.hasNext()) {
+            FlightSeatRowDto row = rows.next();
+            // rows are ordered by flight, so a new flight id completes the previous FlightDto
+            if (!row.getFlightId().equals(currentFlightId)) {
+                if (flightDto != null) {
+                    flightConsumer.accept(currentFlightId, flightDto);
+                }
+                currentFlightId = row.getFlightId();
+                flightDto = toFlightDto(row);
+            }
+            if (row.getSeatId() != null) {
+                SeatDto seatDto = new SeatDto();
+                seatDto.setSeatName(row.getSeatName());
+                flightDto.getAvaliableSeats().add(seatDto);
+            }
+        }
+        if (flightDto != null) {
+            flightConsumer.accept(currentFlightId, flightDto);
+        }
+    }
+
+    private FlightDto toFlightDto(FlightSeatRowDto row) {
+        FlightDto flightDto = new FlightDto();
+        flightDto.setFlightName(row.getFlightName());
+        flightDto.setOrigin(row.getOrigin());
+        flightDto.setDestination(row.getDestination());
+        flightDto.setDepartureTime(row.getDepartureTime());
+        flightDto.setArrivalTime(row.getArrivalTime());
+        flightDto.setPrice(row.getPrice());
+        flightDto.setTotalSeatCount(row.getTotalSeatCount());
+        flightDto.setAvailableSeatCount(row.getAvailableSeatCount());
+        flightDto.setAvaliableSeats(new ArrayList<>());
+        return flightDto;
+    }
+
+    private String makePayment(BigDecimal price, Deadline deadline, PaymentReceipt receipt) {
+        return awaitPayment(callBank(price, deadline, receipt), deadline);
+    }
+
+    /**
+     * Starts the payment on the bank executor. The bulkhead slot is held until the bank has answered, also after
+     * the booking's deadline has passed, so it caps the payments in progress at the bank rather than the threads
+     * waiting for them; the bank breaker itself records the calls on the payment threads.
+     */
+    private CompletableFuture<String> callBank(BigDecimal price, Deadline deadline, PaymentReceipt receipt) {
+        try {
+            return paymentGuards.getBankBulkhead().executeAsync(() -> {
+                try (Deadline.Scope scope = deadline.bind(); PaymentReceipt.Scope receiptScope = receipt.bind()) {
+                    return paymentServiceClients.call(price);
+                }
+            });
+        } catch (Bulkhead.BulkheadFullException e) {
+            log.error("Payment rejected: " + e.getMessage());
+            throw new BusinessException(TransactionCode.PAYMENT_REJECTED);
+        }
+    }
+
+    /**
+     * Pays on a payment thread as well, so that a hanging Iyzico call does not keep the request thread past its
+     * deadline. Like the bank's, the bulkhead slot is held until the Iyzico call has completed.
+     */
+    private String payWithIyzico(BigDecimal price, ClientRequest clientRequest, Deadline deadline) {
+        CircuitBreaker circuitBreaker = paymentGuards.getIyzicoCircuitBreaker();
+        CompletableFuture<String> future;
+        try {
+            future = paymentGuards.getIyzicoBulkhead().executeAsync(() -> {
+                try (Deadline.Scope scope = deadline.bind()) {
+                    return paymentExecutor.submit(() -> circuitBreaker.execute(
+                            () -> realPaymentService.pay(price, clientRequest), status -> !"success".equalsIgnoreCase(status)));
+                }
+            });
+        } catch (Bulkhead.BulkheadFullException e) {
+            log.error("Iyzico payment rejected: " + e.getMessage());
+            throw new BusinessException(TransactionCode.PAYMENT_REJECTED);
+        }
+        // a copy, so that the bulkhead slot is only freed when the call itself returns
+        return awaitPayment(future.copy().orTimeout(paymentGuards.getIyzicoTimeoutMillis(), TimeUnit.MILLISECONDS), deadline);
+    }
+
+    /**
+     * Fails a booking whose payment provider has an open breaker before a seat is held or claimed.
+     */
+    private void checkCallPermitted(CircuitBreaker circuitBreaker) {
+        if (!circuitBreaker.isCallPermitted()) {
+            log.error("Payment not attempted: " + circuitBreaker.getName() + " circuit breaker is open");
+            throw new BusinessException(TransactionCode.PAYMENT_ERROR);
+        }
+    }
+
+    private void checkDeadline(Deadline deadline, String work) {
+        if (deadline.isExpired()) {
+            log.error(work + " dropped, the " + deadline.getTimeoutMillis() + " ms deadline has passed");
+            throw new BusinessException(TransactionCode.PAYMENT_TIMEOUT);
+        }
+    }
+
+    private String awaitPayment(CompletableFuture<String> future, Deadline deadline) {
+        try {
+            return future.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.error("Payment did not complete within the " + deadline.getTimeoutMillis() + " ms deadline");
+            throw new PaymentInFlightException(future);
+        } catch (ExecutionException e) {
+            throw new BusinessException(paymentFailure(e.getCause()));
         } catch (Exception e) {
             log.error("Payment error: " + e.getMessage());
             throw new BusinessException(TransactionCode.PAYMENT_ERROR);
         }
     }
+
+    private TransactionCode paymentFailure(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof RejectedExecutionException) {
+            log.error("Payment rejected: " + cause.getMessage());
+            return TransactionCode.PAYMENT_REJECTED;
+        }
+        if (cause instanceof Deadline.DeadlineExceededException) {
+            log.error("Payment did not complete before its deadline: " + cause.getMessage());
+            return TransactionCode.PAYMENT_TIMEOUT;
+        }
+        if (cause instanceof TimeoutException) {
+            log.error("Payment given up after its time limit");
+            return TransactionCode.PAYMENT_TIMEOUT;
+        }
+        log.error("Payment error: " + cause.getMessage());
+        return TransactionCode.PAYMENT_ERROR;
+    }
+
+    private class CatalogLoader implements FlightCatalogCache.Loader {
+
+        @Override
+        public void loadAll(BiConsumer<Long, FlightDto> consumer) {
+            groupByFlight(flightRepository.findAllWithAvailableSeats().iterator(), consumer);
+        }
+
+        @Override
+        public void load(Collection<Long> flightIds, BiConsumer<Long, FlightDto> consumer) {
+            groupByFlight(flightRepository.findWithAvailableSeatsByFlightIds(flightIds).iterator(), consumer);
+        }
+    }
+
+    /**
+     * The request deadline passed before the payment completed; the payment itself keeps running.
+     */
+    @Getter
+    private static final class PaymentInFlightException extends BusinessException {
+        private final transient CompletableFuture<String> payment;
+
+        private PaymentInFlightException(CompletableFuture<String> payment) {
+            super(TransactionCode.PAYMENT_TIMEOUT);
+            this.payment = payment;
+        }
+    }
 }
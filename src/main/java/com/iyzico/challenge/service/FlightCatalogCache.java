@@ -0,0 +1,201 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.dto.FlightDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Caches the assembled flight catalog. Every write path bumps a monotonically increasing catalog version, so a
+ * reader only compares the version of the published snapshot with the current one to know whether it is fresh.
+ * <p>
+ * A stale snapshot is rebuilt by one reader at a time from per-flight entries held in a size-bounded LRU map:
+ * only flights invalidated since the last rebuild are reloaded, and the whole catalog only when flights were
+ * created or deleted. Catalogs larger than {@code flight.catalog.cache.max-flights} are not cached.
+ */
+@Service
+public class FlightCatalogCache {
+
+    private static final int MAX_PARTIAL_RELOAD = 1000;
+
+    private final int maxFlights;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicBoolean catalogInvalidated = new AtomicBoolean();
+    private final Set<Long> invalidatedFlights = ConcurrentHashMap.newKeySet();
+    private final Object rebuildLock = new Object();
+    private volatile Snapshot snapshot;
+
+    // guarded by rebuildLock
+    private final Map<Long, FlightDto> entries;
+    private List<Long> flightIds;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    public FlightCatalogCache(MeterRegistry meterRegistry,
+                              @Value("${flight.catalog.cache.max-flights:10000}") int maxFlights) {
+        this.maxFlights = maxFlights;
+        this.hitCounter = Counter.builder("flight.catalog.cache.hits")
+                .description("Catalog reads served from the cached snapshot")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("flight.catalog.cache.misses")
+                .description("Catalog reads that had to rebuild the snapshot")
+                .register(meterRegistry);
+        this.evictionCounter = Counter.builder("flight.catalog.cache.evictions")
+                .description("Flights evicted from the cache because it was full")
+                .register(meterRegistry);
+        Gauge.builder("flight.catalog.cache.version", version, AtomicLong::get)
+                .description("Current catalog version")
+                .register(meterRegistry);
+        this.entries = new LinkedHashMap<Long, FlightDto>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, FlightDto> eldest) {
+                if (size() > FlightCatalogCache.this.maxFlights) {
+                    evictionCounter.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Returns the catalog, loading the flights that are not cached through {@code loader}. The returned list
+     * must not be modified.
+     */
+    public List<FlightDto> getCatalog(Loader loader) {
+        Snapshot current = snapshot;
+        if (current != null && current.version == version.get()) {
+            hitCounter.increment();
+            return current.flights;
+        }
+        synchronized (rebuildLock) {
+            long rebuildVersion = version.get();
+            current = snapshot;
+            if (current != null && current.version == rebuildVersion) {
+                hitCounter.increment();
+                return current.flights;
+            }
+            missCounter.increment();
+            List<FlightDto> flights = Collections.unmodifiableList(rebuild(loader));
+            // a write during the rebuild may have been read half-applied, so such a snapshot is not published
+            if (flights.size() <= maxFlights && version.get() == rebuildVersion) {
+                snapshot = new Snapshot(rebuildVersion, flights);
+            }
+            return flights;
+        }
+    }
+
+    /**
+     * Call after a committed change to the flight or its seats.
+     */
+    public void invalidateFlight(Long flightId) {
+        invalidatedFlights.add(flightId);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Call after flights were created or deleted.
+     */
+    public void invalidateCatalog() {
+        catalogInvalidated.set(true);
+        version.incrementAndGet();
+    }
+
+    private List<FlightDto> rebuild(Loader loader) {
+        boolean reloadAll = catalogInvalidated.getAndSet(false) || flightIds == null;
+        for (Iterator<Long> iterator = invalidatedFlights.iterator(); iterator.hasNext(); ) {
+            entries.remove(iterator.next());
+            iterator.remove();
+        }
+        try {
+            return reloadAll ? reloadAll(loader) : reloadMissing(loader);
+        } catch (RuntimeException e) {
+            flightIds = null;
+            throw e;
+        }
+    }
+
+    private List<FlightDto> reloadAll(Loader loader) {
+        List<Long> ids = new ArrayList<>();
+        List<FlightDto> flights = new ArrayList<>();
+        loader.loadAll((flightId, flightDto) -> {
+            ids.add(flightId);
+            flights.add(flightDto);
+            entries.put(flightId, flightDto);
+        });
+        flightIds = ids;
+        return flights;
+    }
+
+    private List<FlightDto> reloadMissing(Loader loader) {
+        List<Long> missing = new ArrayList<>();
+        for (Long flightId : flightIds) {
+            if (!entries.containsKey(flightId)) {
+                missing.add(flightId);
+            }
+        }
+        if (missing.size() > MAX_PARTIAL_RELOAD) {
+            return reloadAll(loader);
+        }
+        Map<Long, FlightDto> loaded = new HashMap<>();
+        if (!missing.isEmpty()) {
+            loader.load(missing, loaded::put);
+        }
+        List<FlightDto> flights = new ArrayList<>(flightIds.size());
+        for (Long flightId : flightIds) {
+            FlightDto flightDto = entries.get(flightId);
+            if (flightDto == null) {
+                flightDto = loaded.get(flightId);
+                if (flightDto == null) {
+                    // deleted without going through the service
+                    continue;
+                }
+                entries.put(flightId, flightDto);
+            }
+            flights.add(flightDto);
+        }
+        return flights;
+    }
+
+    public interface Loader {
+
+        /**
+         * Passes every flight to {@code consumer} in catalog order.
+         */
+        void loadAll(BiConsumer<Long, FlightDto> consumer);
+
+        void load(Collection<Long> flightIds, BiConsumer<Long, FlightDto> consumer);
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final List<FlightDto> flights;
+
+        private Snapshot(long version, List<FlightDto> flights) {
+            this.version = version;
+            this.flights = flights;
+        }
+    }
+}
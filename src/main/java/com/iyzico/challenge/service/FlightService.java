@@ -1,10 +1,14 @@
 package com.iyzico.challenge.service;
 
+import com.iyzico.challenge.dto.FlightDto;
+import com.iyzico.challenge.request.BulkSeatRequest;
 import com.iyzico.challenge.request.ClientRequest;
 import com.iyzico.challenge.request.FlightRequest;
 import com.iyzico.challenge.request.SeatRequest;
 import com.iyzico.challenge.response.*;
 
+import java.util.function.Consumer;
+
 public interface FlightService {
 
     FlightResponse createFlight(FlightRequest flightRequest);
@@ -15,13 +19,41 @@ public interface FlightService {
 
     SeatResponse addSeat(Long flightId, SeatRequest seatRequest);
 
+    BulkSeatResponse addSeats(Long flightId, BulkSeatRequest bulkSeatRequest);
+
     DefaultMessageResponse deleteSeat(Long flightId, Long seatId);
 
     DefaultMessageResponse updateSeat(Long flightId, Long seatId, SeatRequest seatRequest);
 
     DetailFlightResponse getAllFlights();
 
+    void streamAllFlights(Consumer<FlightDto> flightConsumer);
+
     DefaultMessageResponse bookSeat(Long flightId, Long seatId);
 
     DefaultMessageResponse bookSeatWithIyzico(Long flightId, Long seatId, ClientRequest clientRequest);
+
+    /**
+     * Books the seat at most once per {@code idempotencyKey}; a retry with the same key returns the first result
+     * without paying again. A {@code null} key books without deduplication.
+     */
+    DefaultMessageResponse bookSeat(Long flightId, Long seatId, String idempotencyKey);
+
+    /**
+     * Same as {@link #bookSeat(Long, Long, String)} for a payment through Iyzico.
+     */
+    DefaultMessageResponse bookSeatWithIyzico(Long flightId, Long seatId, ClientRequest clientRequest, String idempotencyKey);
+
+    /**
+     * Claims the seat and pays in the background. The returned booking is {@code PENDING}; {@link #getBooking(Long)}
+     * reports whether it was confirmed or failed.
+     */
+    BookingResponse bookSeatAsync(Long flightId, Long seatId);
+
+    BookingResponse getBooking(Long bookingId);
+
+    /**
+     * Runs {@code callback} once the booking is no longer pending, right away if it already is not.
+     */
+    void whenBookingDone(Long bookingId, Runnable callback);
 }
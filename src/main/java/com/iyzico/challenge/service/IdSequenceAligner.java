@@ -0,0 +1,83 @@
+package com.iyzico.challenge.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Migration path for databases whose rows were written before every entity had its own pooled sequence, e.g. an
+ * existing {@code data/demo} opened with {@code ddl-auto: update}: a sequence that is behind its table is restarted
+ * so that the next block of ids starts after the highest id in use. Runs once on startup, before any insert.
+ */
+@Service
+@Slf4j
+public class IdSequenceAligner {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public IdSequenceAligner(EntityManagerFactory entityManagerFactory,
+                             JdbcTemplate jdbcTemplate,
+                             @Value("${id.sequence.align-on-startup:true}") boolean enabled) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void alignOnStartup() {
+        if (enabled) {
+            align();
+        }
+    }
+
+    /**
+     * Returns the number of sequences that were restarted.
+     */
+    public int align() {
+        int restarted = 0;
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            if (!(persister.getIdentifierGenerator() instanceof SequenceStyleGenerator)
+                    || !(persister instanceof AbstractEntityPersister)) {
+                continue;
+            }
+            SequenceStyleGenerator generator = (SequenceStyleGenerator) persister.getIdentifierGenerator();
+            if (!generator.getDatabaseStructure().isPhysicalSequence()) {
+                continue;
+            }
+            AbstractEntityPersister entityPersister = (AbstractEntityPersister) persister;
+            String sequenceName = generator.getDatabaseStructure().getPhysicalName().render();
+            int incrementSize = generator.getDatabaseStructure().getIncrementSize();
+            if (align(sequenceName, incrementSize, entityPersister.getTableName(), entityPersister.getIdentifierColumnNames()[0])) {
+                restarted++;
+            }
+        }
+        return restarted;
+    }
+
+    private boolean align(String sequenceName, int incrementSize, String tableName, String idColumn) {
+        Long maxId = jdbcTemplate.queryForObject("select max(" + idColumn + ") from " + tableName, Long.class);
+        if (maxId == null) {
+            return false;
+        }
+        // pooled semantics: the sequence value is the upper bound of the block the next caller gets
+        long hi = jdbcTemplate.queryForObject("select next value for " + sequenceName, Long.class);
+        if (hi - incrementSize + 1 > maxId) {
+            return false;
+        }
+        long restartWith = maxId + incrementSize;
+        jdbcTemplate.execute("alter sequence " + sequenceName + " restart with " + restartWith);
+        log.warn("Sequence " + sequenceName + " was behind " + tableName + " (max id " + maxId + "), restarted with " + restartWith);
+        return true;
+    }
+}
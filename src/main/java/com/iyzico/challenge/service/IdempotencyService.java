@@ -0,0 +1,245 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.concurrent.Deadline;
+import com.iyzico.challenge.entity.IdempotencyRecord;
+import com.iyzico.challenge.exception.BusinessException;
+import com.iyzico.challenge.exception.PaymentPendingException;
+import com.iyzico.challenge.exception.Status;
+import com.iyzico.challenge.exception.TransactionCode;
+import com.iyzico.challenge.repository.IdempotencyRecordRepository;
+import com.iyzico.challenge.response.BaseBody;
+import com.iyzico.challenge.response.DefaultMessageBody;
+import com.iyzico.challenge.response.DefaultMessageResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a booking at most once per {@code Idempotency-Key}. The first request with a key executes the booking;
+ * concurrent duplicates wait for its result and later retries get the stored one.
+ * <p>
+ * Results are kept in a bounded in-memory store, evicted after {@code booking.idempotency.ttl-ms}, and in the
+ * {@code idempotency_record} table so that retries survive a restart or an evicted entry. Transient errors such as a
+ * failed or rejected payment or a seat held by another booking are not stored, so the client can retry them with
+ * the same key. A booking that timed out while its payment was still running keeps its key until the payment has
+ * settled; retries wait for that outcome instead of paying again, but no longer than their own request deadline.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final RequestDeadlines requestDeadlines;
+    private final long ttlMillis;
+    // insertion ordered, so the eldest entries are the first to expire; guarded by itself
+    private final Map<String, Entry> entries;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              RequestDeadlines requestDeadlines,
+                              @Value("${booking.idempotency.ttl-ms:86400000}") long ttlMillis,
+                              @Value("${booking.idempotency.max-entries:10000}") int maxEntries) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.requestDeadlines = requestDeadlines;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<String, Entry>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param requestFingerprint identifies the request the key was issued for; reusing a key for another request
+     *                           fails with {@link TransactionCode#IDEMPOTENCY_KEY_REUSED}
+     */
+    public DefaultMessageResponse execute(String idempotencyKey, String requestFingerprint, Supplier<DefaultMessageResponse> booking) {
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(idempotencyKey);
+            if (entry != null && entry.isExpired(System.currentTimeMillis(), ttlMillis)) {
+                entries.remove(idempotencyKey);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry(requestFingerprint, System.currentTimeMillis());
+                entries.put(idempotencyKey, entry);
+                owner = true;
+            }
+        }
+        if (!entry.requestFingerprint.equals(requestFingerprint)) {
+            throw new BusinessException(TransactionCode.IDEMPOTENCY_KEY_REUSED);
+        }
+        if (!owner) {
+            log.info("Request with idempotency key " + idempotencyKey + " is a duplicate, waiting for the first result");
+            return await(idempotencyKey, entry);
+        }
+        try {
+            DefaultMessageResponse response = storedOrExecute(idempotencyKey, requestFingerprint, booking);
+            entry.result.complete(response);
+            return response;
+        } catch (PaymentPendingException e) {
+            Entry pending = entry;
+            pending.paymentPending = true;
+            e.getOutcome().whenComplete((response, failure) -> settle(idempotencyKey, requestFingerprint, pending, response, failure));
+            throw e;
+        } catch (BusinessException e) {
+            if (isTransient(e.getTransactionCode())) {
+                forget(idempotencyKey, entry);
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException e) {
+            forget(idempotencyKey, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${booking.idempotency.purge-interval-ms:60000}",
+            fixedDelayString = "${booking.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext() && iterator.next().isExpired(now, ttlMillis)) {
+                iterator.remove();
+            }
+        }
+        int deleted = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusNanos(ttlMillis * 1_000_000));
+        if (deleted > 0) {
+            log.info(deleted + " expired idempotency records deleted");
+        }
+    }
+
+    private DefaultMessageResponse storedOrExecute(String idempotencyKey, String requestFingerprint, Supplier<DefaultMessageResponse> booking) {
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(idempotencyKey);
+        if (stored.isPresent()) {
+            if (!stored.get().getRequestFingerprint().equals(requestFingerprint)) {
+                throw new BusinessException(TransactionCode.IDEMPOTENCY_KEY_REUSED);
+            }
+            log.info("Request with idempotency key " + idempotencyKey + " already processed, returning stored result");
+            return toResponse(stored.get());
+        }
+        DefaultMessageResponse response;
+        try {
+            response = booking.get();
+        } catch (BusinessException e) {
+            if (!isTransient(e.getTransactionCode())) {
+                save(idempotencyKey, requestFingerprint, e.getTransactionCode(), null);
+            }
+            throw e;
+        }
+        save(idempotencyKey, requestFingerprint, TransactionCode.SUCCESS, response.getBody().getData().getMessage());
+        return response;
+    }
+
+    /**
+     * Records the outcome of a booking whose payment outlived the request that started it.
+     */
+    private void settle(String idempotencyKey, String requestFingerprint, Entry entry, DefaultMessageResponse response, Throwable failure) {
+        if (failure == null) {
+            save(idempotencyKey, requestFingerprint, TransactionCode.SUCCESS, response.getBody().getData().getMessage());
+            entry.result.complete(response);
+            return;
+        }
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof BusinessException && !isTransient(((BusinessException) cause).getTransactionCode())) {
+            save(idempotencyKey, requestFingerprint, ((BusinessException) cause).getTransactionCode(), null);
+        } else {
+            forget(idempotencyKey, entry);
+        }
+        entry.result.completeExceptionally(cause);
+    }
+
+    private void save(String idempotencyKey, String requestFingerprint, TransactionCode transactionCode, String message) {
+        IdempotencyRecord idempotencyRecord = new IdempotencyRecord();
+        idempotencyRecord.setIdempotencyKey(idempotencyKey);
+        idempotencyRecord.setRequestFingerprint(requestFingerprint);
+        idempotencyRecord.setTransactionCode(transactionCode.getId());
+        idempotencyRecord.setMessage(message);
+        try {
+            idempotencyRecordRepository.save(idempotencyRecord);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Idempotency key " + idempotencyKey + " was stored concurrently");
+        } catch (RuntimeException e) {
+            // the booking itself succeeded; the in-memory entry still covers retries until it expires
+            log.error("Idempotency record " + idempotencyKey + " could not be saved: " + e.getMessage());
+        }
+    }
+
+    private void forget(String idempotencyKey, Entry entry) {
+        synchronized (entries) {
+            entries.remove(idempotencyKey, entry);
+        }
+    }
+
+    private static boolean isTransient(TransactionCode transactionCode) {
+        return transactionCode.getHttpStatus().is5xxServerError() || transactionCode == TransactionCode.BOOKING_IN_PROGRESS;
+    }
+
+    private static DefaultMessageResponse toResponse(IdempotencyRecord idempotencyRecord) {
+        TransactionCode transactionCode = TransactionCode.fromId(idempotencyRecord.getTransactionCode());
+        if (transactionCode != TransactionCode.SUCCESS) {
+            throw new BusinessException(transactionCode);
+        }
+        DefaultMessageResponse defaultMessageResponse = new DefaultMessageResponse();
+        defaultMessageResponse.setBody(new BaseBody<>(new DefaultMessageBody(idempotencyRecord.getMessage())));
+        defaultMessageResponse.setStatus(new Status(transactionCode));
+        return defaultMessageResponse;
+    }
+
+    /**
+     * Waits for the first request's result within the duplicate's own deadline. A duplicate that runs out of time
+     * gets {@link TransactionCode#PAYMENT_TIMEOUT} if the first request is waiting for a payment that outlived it,
+     * otherwise {@link TransactionCode#BOOKING_IN_PROGRESS}; both leave the key to the first request.
+     */
+    private DefaultMessageResponse await(String idempotencyKey, Entry entry) {
+        Deadline deadline = requestDeadlines.current();
+        try {
+            return entry.result.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Request with idempotency key " + idempotencyKey + " did not get the first result within its " + deadline.getTimeoutMillis() + " ms deadline");
+            throw new BusinessException(entry.paymentPending ? TransactionCode.PAYMENT_TIMEOUT : TransactionCode.BOOKING_IN_PROGRESS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(TransactionCode.BOOKING_IN_PROGRESS);
+        }
+    }
+
+    private static final class Entry {
+        private final String requestFingerprint;
+        private final long createdAt;
+        private final CompletableFuture<DefaultMessageResponse> result = new CompletableFuture<>();
+        private volatile boolean paymentPending;
+
+        private Entry(String requestFingerprint, long createdAt) {
+            this.requestFingerprint = requestFingerprint;
+            this.createdAt = createdAt;
+        }
+
+        private boolean isExpired(long now, long ttlMillis) {
+            return now - createdAt >= ttlMillis;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.iyzico.challenge.service;
 
+import com.iyzico.challenge.concurrent.CircuitBreaker;
 import com.iyzico.challenge.entity.Payment;
-import com.iyzico.challenge.repository.PaymentRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -13,27 +13,72 @@ import java.math.BigDecimal;
 //@Transactional: This annotation makes the database timeout. Because since there is no two database operations in the same method, there is no need for a transaction.
 public class IyzicoPaymentService {
 
+    private static final String BANK_SUCCESS_CODE = "200";
+
     private Logger logger = LoggerFactory.getLogger(IyzicoPaymentService.class);
 
     private BankService bankService;
-    private PaymentRepository paymentRepository;
+    private PaymentJournal paymentJournal;
+    private PaymentWriteBehindQueue paymentWriteBehindQueue;
+    private BookingMetrics bookingMetrics;
+    private CircuitBreaker bankCircuitBreaker;
 
-    public IyzicoPaymentService(BankService bankService, PaymentRepository paymentRepository) {
+    public IyzicoPaymentService(BankService bankService, PaymentJournal paymentJournal, PaymentWriteBehindQueue paymentWriteBehindQueue,
+                                BookingMetrics bookingMetrics, PaymentGuards paymentGuards) {
         this.bankService = bankService;
-        this.paymentRepository = paymentRepository;
+        this.paymentJournal = paymentJournal;
+        this.paymentWriteBehindQueue = paymentWriteBehindQueue;
+        this.bookingMetrics = bookingMetrics;
+        this.bankCircuitBreaker = paymentGuards.getBankCircuitBreaker();
     }
 
     public void pay(BigDecimal price) {
         //pay with bank
         BankPaymentRequest request = new BankPaymentRequest();
         request.setPrice(price);
-        BankPaymentResponse response = bankService.pay(request);
+        BankPaymentResponse response = callBank(request);
+
+        //journal the bank response before it reaches the database
+        PaymentJournal.Entry journalEntry = null;
+        long journalStart = System.nanoTime();
+        try {
+            journalEntry = paymentJournal.append(price, response.getResultCode());
+        } catch (PaymentJournal.JournalSyncException e) {
+            // keep the journal id so that a replay of the entry does not store the payment twice
+            journalEntry = e.getEntry();
+            logger.error("Bank response of journal entry " + journalEntry.getSequence() + " is not durable: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // the bank has charged already, so the payment is queued without a journal entry whatever went wrong
+            logger.error("Bank response could not be journaled: " + e.getMessage());
+        } finally {
+            bookingMetrics.recordJournalAppend(System.nanoTime() - journalStart);
+        }
 
-        //insert records
+        //queue records, writer threads insert them in batches
         Payment payment = new Payment();
         payment.setBankResponse(response.getResultCode());
         payment.setPrice(price);
-        paymentRepository.save(payment);
-        logger.info("Payment saved successfully!");
+        if (journalEntry != null) {
+            payment.setJournalId(journalEntry.getSequence());
+            PaymentReceipt.recordJournalSequence(journalEntry.getSequence());
+        }
+        paymentWriteBehindQueue.enqueue(payment, journalEntry);
+        logger.info("Payment queued successfully!");
+    }
+
+    private BankPaymentResponse callBank(BankPaymentRequest request) {
+        long start = System.nanoTime();
+        String result = "error";
+        try {
+            BankPaymentResponse response = bankCircuitBreaker.execute(() -> bankService.pay(request),
+                    bankResponse -> bankResponse == null || !BANK_SUCCESS_CODE.equals(bankResponse.getResultCode()));
+            result = String.valueOf(response.getResultCode());
+            return response;
+        } catch (CircuitBreaker.CallNotPermittedException e) {
+            result = "not-permitted";
+            throw e;
+        } finally {
+            bookingMetrics.recordBankCall(result, System.nanoTime() - start);
+        }
     }
 }
@@ -0,0 +1,78 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.entity.Payment;
+import com.iyzico.challenge.entity.PooledSequenceGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Writes payments with multi-row {@code INSERT} statements through {@link JdbcTemplate}, bypassing the persistence
+ * context. Ids come from the same pooled {@code payment_seq} as the entity mapping: one sequence call reserves
+ * {@code hibernate.id.allocation_size.payment_seq} ids, so a batch costs one connection checkout and a handful of
+ * statements.
+ */
+@Service
+@ConditionalOnProperty(name = "payment.writer", havingValue = "jdbc")
+public class JdbcPaymentWriter implements PaymentWriter {
+
+    static final int MAX_ROWS_PER_STATEMENT = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int allocationSize;
+    private final Object idLock = new Object();
+    private long nextId;
+    private long maxId = -1;
+
+    public JdbcPaymentWriter(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${spring.jpa.properties.hibernate.id.allocation_size.payment_seq:" + PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE + "}") int allocationSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.allocationSize = allocationSize;
+    }
+
+    @Override
+    public void write(List<Payment> payments) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < payments.size(); from += MAX_ROWS_PER_STATEMENT) {
+                insert(payments.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, payments.size())));
+            }
+        });
+    }
+
+    private void insert(List<Payment> payments) {
+        StringBuilder sql = new StringBuilder("insert into payment (id, price, bank_response, journal_id) values ");
+        Object[] args = new Object[payments.size() * 4];
+        for (int i = 0; i < payments.size(); i++) {
+            Payment payment = payments.get(i);
+            if (payment.getId() == null) {
+                payment.setId(nextId());
+            }
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+            args[i * 4] = payment.getId();
+            args[i * 4 + 1] = payment.getPrice();
+            args[i * 4 + 2] = payment.getBankResponse();
+            args[i * 4 + 3] = payment.getJournalId();
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    private long nextId() {
+        synchronized (idLock) {
+            if (nextId > maxId) {
+                // pooled optimizer semantics: the sequence value is the upper bound of the reserved block
+                Long hi = jdbcTemplate.queryForObject("select next value for payment_seq", Long.class);
+                maxId = hi;
+                nextId = Math.max(1, hi - allocationSize + 1);
+            }
+            return nextId++;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.entity.Payment;
+import com.iyzico.challenge.repository.PaymentRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+@Service
+@ConditionalOnProperty(name = "payment.writer", havingValue = "jpa", matchIfMissing = true)
+public class JpaPaymentWriter implements PaymentWriter {
+
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public JpaPaymentWriter(PaymentRepository paymentRepository, PlatformTransactionManager transactionManager) {
+        this.paymentRepository = paymentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void write(List<Payment> payments) {
+        transactionTemplate.executeWithoutResult(status -> paymentRepository.saveAll(payments));
+    }
+}
@@ -0,0 +1,37 @@
+package com.iyzico.challenge.service;
+
+import java.util.Random;
+
+/**
+ * Response time model of the {@link SimulatedBankService}.
+ */
+public interface LatencyDistribution {
+
+    long sampleMillis(Random random);
+
+    static LatencyDistribution fixed(long millis) {
+        return random -> millis;
+    }
+
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        if (maxMillis < minMillis) {
+            throw new IllegalArgumentException("Maximum latency " + maxMillis + " ms is below the minimum " + minMillis + " ms");
+        }
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+    }
+
+    /**
+     * Right-skewed latencies around {@code medianMillis}; a larger {@code sigma} gives a longer tail.
+     */
+    static LatencyDistribution logNormal(long medianMillis, double sigma) {
+        double mu = Math.log(medianMillis);
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    /**
+     * A fast and a slow mode, e.g. requests served from a warm path and requests that hit a slow backend.
+     */
+    static LatencyDistribution bimodal(LatencyDistribution fast, LatencyDistribution slow, double slowShare) {
+        return random -> random.nextDouble() < slowShare ? slow.sampleMillis(random) : fast.sampleMillis(random);
+    }
+}
@@ -0,0 +1,152 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.concurrent.Deadline;
+import com.iyzico.challenge.concurrent.VirtualThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated pool for the blocking bank calls. With {@code spring.threads.virtual.enabled} on a runtime that
+ * supports it, every call gets its own virtual thread, so thousands of slow payments do not need thousands of OS
+ * threads. Otherwise a bounded pool is used: with the {@code fail-fast} rejection policy a full pool completes the
+ * returned future with a {@link RejectedExecutionException}; with {@code caller-runs} the caller executes the task
+ * itself. The {@link Deadline} of the submitting thread is bound on the payment thread, and a task whose deadline
+ * passed while it was queued is dropped with a {@link Deadline.DeadlineExceededException}. Its
+ * {@link PaymentReceipt} is bound there as well.
+ */
+@Service
+@Slf4j
+public class PaymentExecutor {
+
+    public static final String FAIL_FAST = "fail-fast";
+    public static final String CALLER_RUNS = "caller-runs";
+
+    private final ExecutorService executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejectedCounter;
+    private final Counter expiredCounter;
+
+    public PaymentExecutor(MeterRegistry meterRegistry,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                           @Value("${payment.executor.core-pool-size:16}") int corePoolSize,
+                           @Value("${payment.executor.max-pool-size:32}") int maxPoolSize,
+                           @Value("${payment.executor.queue-capacity:200}") int queueCapacity,
+                           @Value("${payment.executor.keep-alive-seconds:60}") long keepAliveSeconds,
+                           @Value("${payment.executor.rejection-policy:" + FAIL_FAST + "}") String rejectionPolicy) {
+        this.rejectedCounter = Counter.builder("payment.executor.rejected")
+                .description("Payment tasks rejected because the pool and its queue were full")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("payment.executor.expired")
+                .description("Payment tasks dropped because their deadline passed before they started")
+                .register(meterRegistry);
+        Gauge.builder("payment.executor.active", inFlight, AtomicInteger::get)
+                .description("Payment tasks currently running")
+                .register(meterRegistry);
+
+        if (virtualThreads && VirtualThreads.isSupported()) {
+            this.executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            log.info("Payment executor runs bank calls on virtual threads");
+            return;
+        }
+        if (virtualThreads) {
+            log.warn("Virtual threads are not supported by this runtime, falling back to a bounded payment pool");
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(corePoolSize, maxPoolSize, keepAliveSeconds, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("payment-"),
+                rejectionHandler(rejectionPolicy));
+        Gauge.builder("payment.executor.pool.size", pool, ThreadPoolExecutor::getPoolSize)
+                .description("Payment threads in the pool")
+                .register(meterRegistry);
+        Gauge.builder("payment.executor.queue.depth", pool, e -> e.getQueue().size())
+                .description("Payment tasks waiting for a thread")
+                .register(meterRegistry);
+        this.executor = pool;
+        log.info("Payment executor started with " + corePoolSize + "-" + maxPoolSize + " threads, queue " + queueCapacity + " and " + rejectionPolicy + " rejection policy");
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        Deadline deadline = Deadline.current();
+        PaymentReceipt receipt = PaymentReceipt.current();
+        Supplier<T> receiptTask = receipt == null ? task : () -> {
+            try (PaymentReceipt.Scope scope = receipt.bind()) {
+                return task.get();
+            }
+        };
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                if (deadline == null) {
+                    return run(receiptTask);
+                }
+                if (deadline.isExpired()) {
+                    expiredCounter.increment();
+                    deadline.check("Payment task");
+                }
+                try (Deadline.Scope scope = deadline.bind()) {
+                    return run(receiptTask);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * Runs the follow-up of a payment, e.g. storing a booking whose payment outlived its request, on the payment
+     * pool. A full pool runs it on the calling thread instead, so the follow-up is never dropped. Not exposed as
+     * an {@code Executor} bean, which would replace Spring's {@code applicationTaskExecutor}.
+     */
+    public void execute(Runnable command) {
+        try {
+            executor.execute(command);
+        } catch (RejectedExecutionException e) {
+            command.run();
+        }
+    }
+
+    private <T> T run(Supplier<T> task) {
+        inFlight.incrementAndGet();
+        try {
+            return task.get();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private RejectedExecutionHandler rejectionHandler(String rejectionPolicy) {
+        RejectedExecutionHandler delegate;
+        if (CALLER_RUNS.equals(rejectionPolicy)) {
+            delegate = new ThreadPoolExecutor.CallerRunsPolicy();
+        } else if (FAIL_FAST.equals(rejectionPolicy)) {
+            delegate = new ThreadPoolExecutor.AbortPolicy();
+        } else {
+            throw new IllegalArgumentException("Unknown payment executor rejection policy: " + rejectionPolicy);
+        }
+        return (runnable, pool) -> {
+            rejectedCounter.increment();
+            delegate.rejectedExecution(runnable, pool);
+        };
+    }
+}
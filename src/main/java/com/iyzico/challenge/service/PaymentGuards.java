@@ -0,0 +1,26 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.concurrent.Bulkhead;
+import com.iyzico.challenge.concurrent.CircuitBreaker;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Circuit breakers and bulkheads of the payment providers. A breaker records the outcomes of the provider calls
+ * themselves; the bulkhead caps the payments in progress at the provider, including those whose booking has
+ * stopped waiting for them.
+ * <p>
+ * The iyzipay client does not expose its connection timeouts, so an Iyzico payment is given up after
+ * {@code iyzicoTimeoutMillis} instead: its booking fails and releases the seat, while the bulkhead slot stays taken
+ * until the call itself returns.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PaymentGuards {
+
+    private final CircuitBreaker bankCircuitBreaker;
+    private final Bulkhead bankBulkhead;
+    private final CircuitBreaker iyzicoCircuitBreaker;
+    private final Bulkhead iyzicoBulkhead;
+    private final long iyzicoTimeoutMillis;
+}
@@ -0,0 +1,361 @@
+package com.iyzico.challenge.service;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only, memory-mapped journal of bank responses. Every response is appended here before it is handed to
+ * the database so that a payment the bank has already accepted survives an exhausted pool, a failed insert or a
+ * crash. Entries stay {@code PENDING} until the {@code payment} row is committed and are replayed by
+ * {@link PaymentJournalReplayer} otherwise.
+ * <p>
+ * The file is a ring of fixed-size slots; a slot is reused only once its entry is committed. Appends are
+ * sequential writes into the mapped region and durability is group-committed: a single sync thread forces the
+ * mapping and releases every appender whose entry was covered by that fsync. When the fsync fails, the appenders it
+ * covered get a {@link JournalSyncException} instead, and so do appenders still waiting at shutdown or interrupt.
+ * Appenders wait on {@link ReentrantLock} conditions rather than monitors, so that payments running on virtual
+ * threads unmount while they wait for the fsync instead of pinning their carrier thread.
+ */
+@Service
+@Slf4j
+public class PaymentJournal {
+
+    static final byte PENDING = 1;
+    static final byte COMMITTED = 2;
+
+    private static final int MAGIC = 0x50414A31;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 128;
+    private static final int PRICE_LENGTH = 48;
+    private static final int RESULT_CODE_LENGTH = 32;
+
+    // record layout: state(1) sequence(8) appendedAt(8) priceLength(2) price(48) resultCodeLength(2) resultCode(32)
+    private static final int STATE_OFFSET = 0;
+    private static final int SEQUENCE_OFFSET = 1;
+    private static final int APPENDED_AT_OFFSET = 9;
+    private static final int PRICE_OFFSET = 17;
+    private static final int RESULT_CODE_OFFSET = PRICE_OFFSET + 2 + PRICE_LENGTH;
+
+    // header layout: magic(4) slots(4) nextSequence(8)
+    private static final int SLOTS_OFFSET = 4;
+    private static final int NEXT_SEQUENCE_OFFSET = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final boolean fsync;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncProgress = syncLock.newCondition();
+
+    private int nextSlot;
+    private long nextSequence;
+    private long appendedCount;
+    private long syncedCount;
+    // appends covered by the last fsync attempt, successful or not
+    private long attemptedCount;
+    private long failedCount;
+    private String syncFailure;
+    private volatile boolean running = true;
+
+    public PaymentJournal(@Value("${payment.journal.path:./data/payment.journal}") String path,
+                          @Value("${payment.journal.slots:65536}") int slots,
+                          @Value("${payment.journal.fsync:true}") boolean fsync) throws IOException {
+        Path file = Paths.get(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        boolean exists = Files.exists(file) && Files.size(file) >= HEADER_SIZE;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (exists) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IllegalStateException("File " + path + " is not a payment journal");
+            }
+            this.slots = header.getInt(SLOTS_OFFSET);
+        } else {
+            this.slots = slots;
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) this.slots * RECORD_SIZE);
+        this.fsync = fsync;
+        if (exists) {
+            this.nextSequence = buffer.getLong(NEXT_SEQUENCE_OFFSET);
+        } else {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(SLOTS_OFFSET, this.slots);
+            buffer.putLong(NEXT_SEQUENCE_OFFSET, 1);
+            this.nextSequence = 1;
+            buffer.force();
+        }
+        if (fsync) {
+            Thread syncThread = new Thread(this::syncLoop, "payment-journal-sync");
+            syncThread.setDaemon(true);
+            syncThread.start();
+        }
+        log.info("Payment journal " + path + " opened with " + this.slots + " slots");
+    }
+
+    /**
+     * Appends a bank response and returns once the entry is durable.
+     *
+     * @throws JournalFullException when every slot holds an uncommitted entry
+     * @throws JournalSyncException when the entry was written but could not be made durable
+     * @throws IllegalArgumentException when the price or result code does not fit into a record; nothing is written
+     */
+    public Entry append(BigDecimal price, String resultCode) {
+        // encoded before the record is touched, so that a value that does not fit leaves no partial record behind
+        byte[] priceBytes = encode(price.toPlainString(), PRICE_LENGTH);
+        byte[] resultCodeBytes = encode(resultCode == null ? "" : resultCode, RESULT_CODE_LENGTH);
+        Entry entry;
+        long appendNumber;
+        lock.lock();
+        try {
+            int slot = findWritableSlot();
+            long sequence = nextSequence++;
+            long appendedAt = System.currentTimeMillis();
+            int offset = offset(slot);
+            buffer.putLong(offset + SEQUENCE_OFFSET, sequence);
+            buffer.putLong(offset + APPENDED_AT_OFFSET, appendedAt);
+            putString(offset + PRICE_OFFSET, priceBytes);
+            putString(offset + RESULT_CODE_OFFSET, resultCodeBytes);
+            buffer.put(offset + STATE_OFFSET, PENDING);
+            buffer.putLong(NEXT_SEQUENCE_OFFSET, nextSequence);
+            nextSlot = (slot + 1) % slots;
+            appendNumber = ++appendedCount;
+            entry = new Entry(slot, sequence, appendedAt, price, resultCode);
+        } finally {
+            lock.unlock();
+        }
+        awaitSync(appendNumber, entry);
+        return entry;
+    }
+
+    /**
+     * Marks the entry as persisted. The state byte is not forced to disk: if it is lost, replay finds the row by
+     * its journal id and only re-marks the entry.
+     */
+    public void markCommitted(Entry entry) {
+        lock.lock();
+        try {
+            int offset = offset(entry.getSlot());
+            if (buffer.get(offset + STATE_OFFSET) == PENDING && buffer.getLong(offset + SEQUENCE_OFFSET) == entry.getSequence()) {
+                buffer.put(offset + STATE_OFFSET, COMMITTED);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the pending entries that were appended before {@code appendedBefore} (epoch millis).
+     */
+    public List<Entry> pendingEntries(long appendedBefore) {
+        List<Entry> entries = new ArrayList<>();
+        lock.lock();
+        try {
+            for (int slot = 0; slot < slots; slot++) {
+                int offset = offset(slot);
+                if (buffer.get(offset + STATE_OFFSET) != PENDING) {
+                    continue;
+                }
+                long appendedAt = buffer.getLong(offset + APPENDED_AT_OFFSET);
+                if (appendedAt >= appendedBefore) {
+                    continue;
+                }
+                String resultCode = getString(offset + RESULT_CODE_OFFSET);
+                entries.add(new Entry(slot, buffer.getLong(offset + SEQUENCE_OFFSET), appendedAt,
+                        new BigDecimal(getString(offset + PRICE_OFFSET)), resultCode.isEmpty() ? null : resultCode));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return entries;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        running = false;
+        syncLock.lock();
+        try {
+            syncProgress.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+        buffer.force();
+        channel.close();
+    }
+
+    private int findWritableSlot() {
+        for (int i = 0; i < slots; i++) {
+            int slot = (nextSlot + i) % slots;
+            if (buffer.get(offset(slot) + STATE_OFFSET) != PENDING) {
+                return slot;
+            }
+        }
+        throw new JournalFullException("All " + slots + " payment journal slots hold uncommitted entries");
+    }
+
+    private void awaitSync(long appendNumber, Entry entry) {
+        if (!fsync) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            syncProgress.signalAll();
+            while (syncedCount < appendNumber) {
+                if (failedCount >= appendNumber && attemptedCount == failedCount) {
+                    throw new JournalSyncException("Payment journal fsync failed: " + syncFailure, entry);
+                }
+                if (!running) {
+                    throw new JournalSyncException("Payment journal closed before the entry was synced", entry);
+                }
+                try {
+                    syncProgress.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new JournalSyncException("Interrupted while waiting for the payment journal fsync", entry);
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void syncLoop() {
+        while (running) {
+            long target;
+            syncLock.lock();
+            try {
+                while (running && attemptedCount == currentAppendedCount()) {
+                    try {
+                        syncProgress.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                target = currentAppendedCount();
+            } finally {
+                syncLock.unlock();
+            }
+            String failure = null;
+            try {
+                forceBuffer();
+            } catch (UncheckedIOException e) {
+                failure = e.getMessage();
+                log.error("Payment journal fsync failed: " + failure);
+            }
+            syncLock.lock();
+            try {
+                attemptedCount = target;
+                if (failure == null) {
+                    syncedCount = target;
+                } else {
+                    // a later successful fsync covers these entries too, but their appenders have already failed
+                    failedCount = target;
+                    syncFailure = failure;
+                }
+                syncProgress.signalAll();
+            } finally {
+                syncLock.unlock();
+            }
+        }
+    }
+
+    void forceBuffer() {
+        buffer.force();
+    }
+
+    private long currentAppendedCount() {
+        lock.lock();
+        try {
+            return appendedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private static byte[] encode(String value, int maxLength) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > maxLength) {
+            throw new IllegalArgumentException("Value " + value + " does not fit into a journal record");
+        }
+        return bytes;
+    }
+
+    private void putString(int offset, byte[] bytes) {
+        buffer.putShort(offset, (short) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(offset + 2 + i, bytes[i]);
+        }
+    }
+
+    private String getString(int offset) {
+        int length = buffer.getShort(offset);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    @Getter
+    public static final class Entry {
+        private final int slot;
+        private final long sequence;
+        private final long appendedAt;
+        private final BigDecimal price;
+        private final String resultCode;
+
+        Entry(int slot, long sequence, long appendedAt, BigDecimal price, String resultCode) {
+            this.slot = slot;
+            this.sequence = sequence;
+            this.appendedAt = appendedAt;
+            this.price = price;
+            this.resultCode = resultCode;
+        }
+    }
+
+    /**
+     * The entry is in the journal but may not survive a crash. It keeps its sequence, so a payment stored with it is
+     * still recognized by the replay.
+     */
+    @Getter
+    public static class JournalSyncException extends RuntimeException {
+        private final transient Entry entry;
+
+        public JournalSyncException(String message, Entry entry) {
+            super(message);
+            this.entry = entry;
+        }
+    }
+
+    public static class JournalFullException extends RuntimeException {
+        public JournalFullException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.entity.Payment;
+import com.iyzico.challenge.repository.PaymentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+
+/**
+ * Loads bank responses that are still pending in the {@link PaymentJournal} into the {@code payment} table, once on
+ * startup and then periodically for entries the write-behind writers could not save.
+ */
+@Service
+@Slf4j
+public class PaymentJournalReplayer {
+
+    private final PaymentJournal paymentJournal;
+    private final PaymentRepository paymentRepository;
+    private final PaymentWriter paymentWriter;
+    private final long recoveryMinAgeMillis;
+
+    public PaymentJournalReplayer(PaymentJournal paymentJournal,
+                                  PaymentRepository paymentRepository,
+                                  PaymentWriter paymentWriter,
+                                  @Value("${payment.journal.recovery-min-age-ms:60000}") long recoveryMinAgeMillis) {
+        this.paymentJournal = paymentJournal;
+        this.paymentRepository = paymentRepository;
+        this.paymentWriter = paymentWriter;
+        this.recoveryMinAgeMillis = recoveryMinAgeMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayOnStartup() {
+        int replayed = replay(System.currentTimeMillis());
+        log.info(replayed + " journaled payments replayed on startup");
+    }
+
+    @Scheduled(initialDelayString = "${payment.journal.recovery-interval-ms:60000}",
+            fixedDelayString = "${payment.journal.recovery-interval-ms:60000}")
+    public void recover() {
+        int replayed = replay(System.currentTimeMillis() - recoveryMinAgeMillis);
+        if (replayed > 0) {
+            log.warn(replayed + " journaled payments recovered");
+        }
+    }
+
+    /**
+     * Replays the pending entries appended before {@code appendedBefore} and returns how many rows were inserted.
+     * Stops at the first database error and leaves the remaining entries for the next run.
+     */
+    public int replay(long appendedBefore) {
+        int replayed = 0;
+        for (PaymentJournal.Entry entry : paymentJournal.pendingEntries(appendedBefore)) {
+            try {
+                if (!paymentRepository.existsByJournalId(entry.getSequence())) {
+                    Payment payment = new Payment();
+                    payment.setPrice(entry.getPrice());
+                    payment.setBankResponse(entry.getResultCode());
+                    payment.setJournalId(entry.getSequence());
+                    paymentWriter.write(Collections.singletonList(payment));
+                    replayed++;
+                }
+                paymentJournal.markCommitted(entry);
+            } catch (DataIntegrityViolationException e) {
+                // saved concurrently by a writer
+                paymentJournal.markCommitted(entry);
+            } catch (Exception e) {
+                log.error("Journal replay stopped at payment " + entry.getSequence() + ": " + e.getMessage());
+                break;
+            }
+        }
+        return replayed;
+    }
+}
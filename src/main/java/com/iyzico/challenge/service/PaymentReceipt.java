@@ -0,0 +1,68 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.concurrent.Deadline;
+
+/**
+ * What the payment of a booking left behind on the payment thread, so far the sequence of its
+ * {@link PaymentJournal} entry. It is bound like a {@link Deadline}: the booking binds a receipt around the payment
+ * call, {@link PaymentExecutor} binds it on the payment thread and the payment fills it in there.
+ */
+public final class PaymentReceipt {
+
+    private static final ThreadLocal<PaymentReceipt> CURRENT = new ThreadLocal<>();
+
+    // journal sequences start at 1
+    private volatile long journalSequence;
+
+    /**
+     * The receipt bound to the current thread, or {@code null} when none is.
+     */
+    public static PaymentReceipt current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Records the journal entry of the payment on the receipt of the current thread, if there is one.
+     */
+    public static void recordJournalSequence(long journalSequence) {
+        PaymentReceipt receipt = CURRENT.get();
+        if (receipt != null) {
+            receipt.journalSequence = journalSequence;
+        }
+    }
+
+    /**
+     * Makes this the receipt of the current thread until the returned scope is closed.
+     */
+    public Scope bind() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(this);
+        return scope;
+    }
+
+    /**
+     * The sequence of the journal entry of the payment, or {@code null} when the payment was not journaled.
+     */
+    public Long getJournalSequence() {
+        long sequence = journalSequence;
+        return sequence == 0 ? null : sequence;
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final PaymentReceipt previous;
+
+        private Scope(PaymentReceipt previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
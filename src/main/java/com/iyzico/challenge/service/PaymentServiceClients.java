@@ -1,6 +1,5 @@
 package com.iyzico.challenge.service;
 
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -10,14 +9,17 @@ import java.util.concurrent.CompletableFuture;
 public class PaymentServiceClients {
 
     private IyzicoPaymentService iyzicoPaymentService;
+    private PaymentExecutor paymentExecutor;
 
-    public PaymentServiceClients(IyzicoPaymentService iyzicoPaymentService) {
+    public PaymentServiceClients(IyzicoPaymentService iyzicoPaymentService, PaymentExecutor paymentExecutor) {
         this.iyzicoPaymentService = iyzicoPaymentService;
+        this.paymentExecutor = paymentExecutor;
     }
 
-    @Async
     public CompletableFuture<String> call(BigDecimal price) {
-        iyzicoPaymentService.pay(price);
-        return CompletableFuture.completedFuture("success");
+        return paymentExecutor.submit(() -> {
+            iyzicoPaymentService.pay(price);
+            return "success";
+        });
     }
 }
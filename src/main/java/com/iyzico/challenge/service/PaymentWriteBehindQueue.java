@@ -0,0 +1,217 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.entity.Payment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded write-behind stage for bank responses. Callers hand over the {@link Payment} once the bank has answered
+ * and a small set of writer threads persists the queue in batches through the {@link PaymentWriter}, so a payment
+ * holds a pool connection only for the duration of one batch insert instead of competing for it after every bank
+ * call.
+ * <p>
+ * When the queue is full the caller waits up to {@code offer-timeout-ms} and then persists the payment itself,
+ * which slows producers down without dropping bank responses. On shutdown the queue is drained before the
+ * context closes. Journal entries are marked committed only after their batch is committed; payments that cannot
+ * be saved stay pending in the {@link PaymentJournal} for recovery.
+ */
+@Service
+@Slf4j
+public class PaymentWriteBehindQueue {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final PaymentWriter paymentWriter;
+    private final PaymentJournal paymentJournal;
+    private final BlockingQueue<PendingPayment> queue;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+    private final ExecutorService writers;
+    private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    private final Timer latencyTimer;
+    private final Timer batchTimer;
+    private final Counter callerRunsCounter;
+
+    public PaymentWriteBehindQueue(PaymentWriter paymentWriter,
+                                   PaymentJournal paymentJournal,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${payment.write-behind.capacity:1000}") int capacity,
+                                   @Value("${payment.write-behind.writers:1}") int writerCount,
+                                   @Value("${payment.write-behind.batch-size:50}") int batchSize,
+                                   @Value("${payment.write-behind.offer-timeout-ms:1000}") long offerTimeoutMillis,
+                                   @Value("${payment.write-behind.shutdown-timeout-ms:30000}") long shutdownTimeoutMillis) {
+        this.paymentWriter = paymentWriter;
+        this.paymentJournal = paymentJournal;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+
+        Gauge.builder("payment.write.behind.queue.depth", queue, BlockingQueue::size)
+                .description("Payments waiting to be persisted")
+                .register(meterRegistry);
+        this.latencyTimer = Timer.builder("payment.write.behind.latency")
+                .description("Time from enqueue until the payment is committed")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("payment.write.behind.batch")
+                .description("Time spent writing one batch of payments")
+                .register(meterRegistry);
+        this.callerRunsCounter = Counter.builder("payment.write.behind.caller.runs")
+                .description("Payments persisted on the caller thread because the queue was full")
+                .register(meterRegistry);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerCount, runnable -> {
+            Thread thread = new Thread(runnable, "payment-writer-" + threadIndex.incrementAndGet());
+            thread.setDaemon(false);
+            return thread;
+        });
+        for (int i = 0; i < writerCount; i++) {
+            writers.execute(this::drainLoop);
+        }
+    }
+
+    /**
+     * @param journalEntry the journal entry of the bank response, or {@code null} if it could not be journaled
+     */
+    public void enqueue(Payment payment, PaymentJournal.Entry journalEntry) {
+        PendingPayment pendingPayment = new PendingPayment(payment, journalEntry, System.nanoTime());
+        lifecycleLock.readLock().lock();
+        try {
+            if (running && queue.offer(pendingPayment, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+        log.warn("Payment write-behind queue unavailable, persisting payment on caller thread");
+        callerRunsCounter.increment();
+        persist(Collections.singletonList(pendingPayment));
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        lifecycleLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+        writers.shutdown();
+        if (!writers.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.error("Payment writers did not finish in " + shutdownTimeoutMillis + " ms");
+        }
+        List<PendingPayment> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            persist(remaining);
+        }
+        log.info("Payment write-behind queue flushed");
+    }
+
+    private void drainLoop() {
+        List<PendingPayment> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPayment first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                persist(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void persist(List<PendingPayment> batch) {
+        List<Payment> payments = new ArrayList<>(batch.size());
+        for (PendingPayment pendingPayment : batch) {
+            payments.add(pendingPayment.getPayment());
+        }
+        try {
+            batchTimer.record(() -> paymentWriter.write(payments));
+            for (PendingPayment pendingPayment : batch) {
+                markCommitted(pendingPayment);
+            }
+        } catch (Exception e) {
+            log.error("Batch of " + payments.size() + " payments could not be saved, retrying one by one: " + e.getMessage());
+            for (PendingPayment pendingPayment : batch) {
+                Payment payment = pendingPayment.getPayment();
+                try {
+                    paymentWriter.write(Collections.singletonList(payment));
+                    markCommitted(pendingPayment);
+                } catch (Exception ex) {
+                    log.error("Payment " + payment.getJournalId() + " with price " + payment.getPrice() + " could not be saved, left in journal for recovery: " + ex.getMessage());
+                }
+            }
+        }
+        long now = System.nanoTime();
+        for (PendingPayment pendingPayment : batch) {
+            latencyTimer.record(now - pendingPayment.getEnqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        log.debug(payments.size() + " payments saved successfully");
+    }
+
+    private void markCommitted(PendingPayment pendingPayment) {
+        if (pendingPayment.getJournalEntry() != null) {
+            paymentJournal.markCommitted(pendingPayment.getJournalEntry());
+        }
+    }
+
+    private static final class PendingPayment {
+        private final Payment payment;
+        private final PaymentJournal.Entry journalEntry;
+        private final long enqueuedAt;
+
+        private PendingPayment(Payment payment, PaymentJournal.Entry journalEntry, long enqueuedAt) {
+            this.payment = payment;
+            this.journalEntry = journalEntry;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        private Payment getPayment() {
+            return payment;
+        }
+
+        private PaymentJournal.Entry getJournalEntry() {
+            return journalEntry;
+        }
+
+        private long getEnqueuedAt() {
+            return enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.entity.Payment;
+
+import java.util.List;
+
+/**
+ * Persists a batch of payments in one transaction. Selected with the {@code payment.writer} property.
+ */
+public interface PaymentWriter {
+
+    void write(List<Payment> payments);
+}
@@ -1,5 +1,6 @@
 package com.iyzico.challenge.service;
 
+import com.iyzico.challenge.concurrent.Deadline;
 import com.iyzico.challenge.request.ClientRequest;
 import com.iyzipay.Options;
 import com.iyzipay.model.*;
@@ -19,6 +20,10 @@ public class RealPaymentService {
         private final Options options;
 
         public String pay(BigDecimal price, ClientRequest clientRequest) {
+                Deadline deadline = Deadline.current();
+                if (deadline != null) {
+                        deadline.check("Iyzico payment");
+                }
                 CreatePaymentRequest request = new CreatePaymentRequest();
                 request.setLocale(Locale.TR.getValue());
                 request.setConversationId("123456789");
@@ -0,0 +1,46 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.concurrent.Deadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Deadlines of booking requests: the timeout a client asks for, capped at the maximum, or the server default.
+ */
+@Service
+public class RequestDeadlines {
+
+    private final long defaultTimeoutMillis;
+    private final long maxTimeoutMillis;
+
+    public RequestDeadlines(@Value("${booking.deadline.default-timeout-ms:30000}") long defaultTimeoutMillis,
+                            @Value("${booking.deadline.max-timeout-ms:60000}") long maxTimeoutMillis) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.maxTimeoutMillis = maxTimeoutMillis;
+    }
+
+    /**
+     * @param requestedTimeoutMillis the client's timeout; {@code null} or a non-positive value uses the default
+     */
+    public Deadline resolve(Long requestedTimeoutMillis) {
+        if (requestedTimeoutMillis == null || requestedTimeoutMillis <= 0) {
+            return Deadline.after(defaultTimeoutMillis);
+        }
+        return Deadline.after(Math.min(requestedTimeoutMillis, maxTimeoutMillis));
+    }
+
+    /**
+     * A new deadline with the server default timeout, for work that outlives the request, e.g. an asynchronous payment.
+     */
+    public Deadline defaultDeadline() {
+        return Deadline.after(defaultTimeoutMillis);
+    }
+
+    /**
+     * The deadline bound to the current thread, e.g. by the {@code RequestDeadlineFilter}, otherwise a new default one.
+     */
+    public Deadline current() {
+        Deadline deadline = Deadline.current();
+        return deadline != null ? deadline : Deadline.after(defaultTimeoutMillis);
+    }
+}
@@ -0,0 +1,37 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.repository.FlightRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Recomputes the denormalized seat counts on {@code Flight} from the {@code seat} table, for counts that drifted
+ * because seats were written around the service or an update was lost.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatCountRepairJob {
+
+    private final FlightRepository flightRepository;
+    private final FlightCatalogCache flightCatalogCache;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void repairOnStartup() {
+        repair();
+    }
+
+    @Scheduled(initialDelayString = "${flight.seat-count-repair-interval-ms:300000}",
+            fixedDelayString = "${flight.seat-count-repair-interval-ms:300000}")
+    public void repair() {
+        int repaired = flightRepository.recomputeSeatCounts();
+        if (repaired > 0) {
+            log.warn("Seat counts of " + repaired + " flights repaired");
+            flightCatalogCache.invalidateCatalog();
+        }
+    }
+}
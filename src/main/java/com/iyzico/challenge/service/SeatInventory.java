@@ -0,0 +1,185 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.concurrent.HashedTimingWheel;
+import com.iyzico.challenge.dto.SeatStateDto;
+import com.iyzico.challenge.exception.BusinessException;
+import com.iyzico.challenge.exception.TransactionCode;
+import com.iyzico.challenge.repository.SeatRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of seat states per flight. Booking contenders race on a compare-and-set here before any bank
+ * call, so only the winner pays; the {@code BookedSeat} unique constraint remains the final guard.
+ * <p>
+ * A seat is free, held or reserved. A hold is placed before the payment and is confirmed or released afterwards;
+ * holds that are neither, e.g. because the request thread died, expire through a {@link HashedTimingWheel} after
+ * {@code seat.hold.ttl-ms}. Once the booking has claimed the seat row the hold no longer expires, since a payment
+ * that is still running may yet confirm or release it.
+ * <p>
+ * The index is rebuilt from the {@code seat} table on startup and kept in sync by the seat and flight write paths.
+ * Seats created outside the service are registered lazily on first use and corrected from their database state by
+ * the booking that holds them.
+ */
+@Service
+@Slf4j
+public class SeatInventory {
+
+    // any positive state is the token of the hold on the seat
+    static final long FREE = 0;
+    static final long RESERVED = -1;
+
+    private final SeatRepository seatRepository;
+    private final HashedTimingWheel timingWheel;
+    private final long holdTtlMillis;
+    private final Map<Long, Map<Long, AtomicLong>> flights = new ConcurrentHashMap<>();
+    private final AtomicLong holdTokens = new AtomicLong();
+
+    public SeatInventory(SeatRepository seatRepository,
+                         HashedTimingWheel timingWheel,
+                         @Value("${seat.hold.ttl-ms:30000}") long holdTtlMillis) {
+        this.seatRepository = seatRepository;
+        this.timingWheel = timingWheel;
+        this.holdTtlMillis = holdTtlMillis;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        flights.clear();
+        int seats = 0;
+        for (SeatStateDto seatState : seatRepository.findAllSeatStates()) {
+            register(seatState.getFlightId(), seatState.getSeatId(), Boolean.TRUE.equals(seatState.getIsReserved()));
+            seats++;
+        }
+        log.info("Seat inventory rebuilt with " + seats + " seats in " + flights.size() + " flights");
+    }
+
+    public void register(Long flightId, Long seatId, boolean reserved) {
+        seats(flightId).put(seatId, new AtomicLong(reserved ? RESERVED : FREE));
+    }
+
+    /**
+     * Places a hold on a free seat before anything is read from the database, so that of all concurrent
+     * contenders for a seat only the holder goes on to load it and call the bank. A seat that is not indexed yet
+     * is held as free; the holder checks its persisted state and confirms or discards the hold.
+     *
+     * @throws BusinessException {@link TransactionCode#ALREADY_BOOKED} if the seat is reserved,
+     *                           {@link TransactionCode#BOOKING_IN_PROGRESS} if another booking holds it
+     */
+    public Hold tryHold(Long flightId, Long seatId) {
+        AtomicLong state = seats(flightId).computeIfAbsent(seatId, id -> new AtomicLong(FREE));
+        long token = holdTokens.incrementAndGet();
+        if (!state.compareAndSet(FREE, token)) {
+            if (state.get() == RESERVED) {
+                throw new BusinessException(TransactionCode.ALREADY_BOOKED);
+            }
+            throw new BusinessException(TransactionCode.BOOKING_IN_PROGRESS);
+        }
+        HashedTimingWheel.Timeout timeout = timingWheel.schedule(() -> {
+            if (state.compareAndSet(token, FREE)) {
+                log.warn("Hold on seat " + seatId + " of flight " + flightId + " expired");
+            }
+        }, holdTtlMillis, TimeUnit.MILLISECONDS);
+        return new Hold(flightId, seatId, token, state, timeout);
+    }
+
+    /**
+     * Marks the held seat as reserved. Also used when the database reports the seat as already booked, so the
+     * seat is reserved even if the hold has expired in the meantime.
+     */
+    public void confirm(Hold hold) {
+        hold.timeout.cancel();
+        hold.state.set(RESERVED);
+    }
+
+    /**
+     * Keeps the hold until the booking confirms or releases it, however long its payment takes. Called once the
+     * seat row is claimed, so that a contender cannot take over the seat while the payment is still running.
+     */
+    public void keep(Hold hold) {
+        hold.timeout.cancel();
+    }
+
+    /**
+     * Frees the held seat, e.g. when the payment failed. Does nothing if the hold has expired.
+     */
+    public void release(Hold hold) {
+        hold.timeout.cancel();
+        hold.state.compareAndSet(hold.token, FREE);
+    }
+
+    /**
+     * Frees the seat after the booking released its claimed row. Unlike {@link #release(Hold)} this also frees a
+     * seat that a contender marked as reserved because it found the row still claimed; a newer hold is left to its
+     * own booking.
+     */
+    public void free(Hold hold) {
+        hold.timeout.cancel();
+        if (!hold.state.compareAndSet(hold.token, FREE)) {
+            hold.state.compareAndSet(RESERVED, FREE);
+        }
+    }
+
+    /**
+     * Drops the held seat from the index because it does not exist in the database, so that requests for unknown
+     * seats do not grow the index.
+     */
+    public void discard(Hold hold) {
+        hold.timeout.cancel();
+        Map<Long, AtomicLong> seats = flights.get(hold.flightId);
+        if (seats != null && hold.isActive()) {
+            seats.remove(hold.seatId, hold.state);
+            flights.computeIfPresent(hold.flightId, (id, remaining) -> remaining.isEmpty() ? null : remaining);
+        }
+    }
+
+    public void remove(Long flightId, Long seatId) {
+        Map<Long, AtomicLong> seats = flights.get(flightId);
+        if (seats != null) {
+            seats.remove(seatId);
+        }
+    }
+
+    public void removeFlight(Long flightId) {
+        flights.remove(flightId);
+    }
+
+    private Map<Long, AtomicLong> seats(Long flightId) {
+        return flights.computeIfAbsent(flightId, id -> new ConcurrentHashMap<>());
+    }
+
+    public static final class Hold {
+        private final Long flightId;
+        private final Long seatId;
+        private final long token;
+        private final AtomicLong state;
+        private final HashedTimingWheel.Timeout timeout;
+
+        private Hold(Long flightId, Long seatId, long token, AtomicLong state, HashedTimingWheel.Timeout timeout) {
+            this.flightId = flightId;
+            this.seatId = seatId;
+            this.token = token;
+            this.state = state;
+            this.timeout = timeout;
+        }
+
+        public Long getFlightId() {
+            return flightId;
+        }
+
+        public Long getSeatId() {
+            return seatId;
+        }
+
+        public boolean isActive() {
+            return state.get() == token;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.entity.BookedSeat;
+import com.iyzico.challenge.entity.Flight;
+import com.iyzico.challenge.repository.BookedSeatRepository;
+import com.iyzico.challenge.repository.FlightRepository;
+import com.iyzico.challenge.repository.SeatRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reserves and frees seat rows together with the available seat count of their flight. Both updates commit in one
+ * transaction, so {@link SeatCountRepairJob} never sees a reserved seat that is still counted as available and the
+ * count is not taken down a second time after the job corrected it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatReservations {
+
+    private final SeatRepository seatRepository;
+    private final FlightRepository flightRepository;
+    private final BookedSeatRepository bookedSeatRepository;
+
+    /**
+     * Reserves the seat if it is still free and takes it off the available count; {@code false} means the seat does
+     * not exist in the flight or is already reserved, and nothing was changed.
+     */
+    @Transactional
+    public boolean claim(Long flightId, Long seatId) {
+        if (seatRepository.claimSeat(flightId, seatId) == 0) {
+            return false;
+        }
+        if (flightRepository.reserveAvailableSeat(flightId) == 0) {
+            log.warn("Available seat count of flight " + flightId + " was already 0, left for the repair job");
+        }
+        return true;
+    }
+
+    /**
+     * Stores the booking of a seat claimed with {@link #claim(Long, Long)} once it is paid. The seat was already
+     * taken off the available count by the claim, so the booking is the only write left and commits on its own.
+     */
+    @Transactional
+    public BookedSeat book(Flight flight, Long seatId) {
+        BookedSeat bookedSeat = new BookedSeat();
+        bookedSeat.setSeat(seatRepository.getReferenceById(seatId));
+        bookedSeat.setFlight(flight);
+        return bookedSeatRepository.save(bookedSeat);
+    }
+
+    /**
+     * Undoes {@link #claim(Long, Long)} when the payment for the seat failed.
+     */
+    @Transactional
+    public boolean release(Long flightId, Long seatId) {
+        if (seatRepository.releaseSeat(flightId, seatId) == 0) {
+            return false;
+        }
+        if (flightRepository.releaseReservedSeat(flightId) == 0) {
+            log.warn("Available seat count of flight " + flightId + " was already full, left for the repair job");
+        }
+        return true;
+    }
+}
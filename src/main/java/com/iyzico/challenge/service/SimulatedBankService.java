@@ -0,0 +1,88 @@
+package com.iyzico.challenge.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Bank with configurable behaviour for capacity tests, used instead of {@link BankService} with the
+ * {@value #PROFILE} profile. Response times follow a {@link LatencyDistribution}; a share of the calls returns
+ * {@code errorCode} and another share hangs for {@code timeoutMillis} and then fails with a
+ * {@link BankTimeoutException}. During a slow-drip burst, {@code burstDurationMillis} out of every
+ * {@code burstPeriodMillis}, every latency is multiplied by {@code burstLatencyFactor}.
+ */
+public class SimulatedBankService extends BankService {
+
+    public static final String PROFILE = "simulated-bank";
+    public static final String SUCCESS_CODE = "200";
+
+    private final LatencyDistribution latencyDistribution;
+    private final double errorRate;
+    private final String errorCode;
+    private final double timeoutRate;
+    private final long timeoutMillis;
+    private final long burstPeriodMillis;
+    private final long burstDurationMillis;
+    private final double burstLatencyFactor;
+    private final LongSupplier clock;
+    private final long startedAt;
+
+    public SimulatedBankService(LatencyDistribution latencyDistribution,
+                                double errorRate,
+                                String errorCode,
+                                double timeoutRate,
+                                long timeoutMillis,
+                                long burstPeriodMillis,
+                                long burstDurationMillis,
+                                double burstLatencyFactor,
+                                LongSupplier clock) {
+        if (errorRate < 0 || timeoutRate < 0 || errorRate + timeoutRate > 1) {
+            throw new IllegalArgumentException("Error rate " + errorRate + " and timeout rate " + timeoutRate + " must be shares between 0 and 1");
+        }
+        this.latencyDistribution = latencyDistribution;
+        this.errorRate = errorRate;
+        this.errorCode = errorCode;
+        this.timeoutRate = timeoutRate;
+        this.timeoutMillis = timeoutMillis;
+        this.burstPeriodMillis = burstPeriodMillis;
+        this.burstDurationMillis = burstDurationMillis;
+        this.burstLatencyFactor = burstLatencyFactor;
+        this.clock = clock;
+        this.startedAt = clock.getAsLong();
+    }
+
+    @Override
+    public BankPaymentResponse pay(BankPaymentRequest request) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double outcome = random.nextDouble();
+        if (outcome < timeoutRate) {
+            sleep(timeoutMillis);
+            throw new BankTimeoutException("Bank did not answer within " + timeoutMillis + " ms");
+        }
+        sleep(latencyMillis(latencyDistribution.sampleMillis(random)));
+        return new BankPaymentResponse(outcome < timeoutRate + errorRate ? errorCode : SUCCESS_CODE);
+    }
+
+    long latencyMillis(long sampledMillis) {
+        long latency = Math.max(sampledMillis, 0);
+        return inBurst() ? Math.round(latency * burstLatencyFactor) : latency;
+    }
+
+    boolean inBurst() {
+        return burstPeriodMillis > 0 && (clock.getAsLong() - startedAt) % burstPeriodMillis < burstDurationMillis;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BankTimeoutException("Bank call interrupted");
+        }
+    }
+
+    public static class BankTimeoutException extends RuntimeException {
+        public BankTimeoutException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.iyzico.challenge.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testExecute_whenSlotsAreFree_runCallAndReleaseSlot() {
+        Bulkhead bulkhead = new Bulkhead("test", 2, 0, meterRegistry);
+
+        assertEquals(1, (int) bulkhead.execute(bulkhead::activeCalls));
+        assertEquals(0, bulkhead.activeCalls());
+    }
+
+    @Test
+    void testExecute_whenAllSlotsAreTaken_rejectCall() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 0, meterRegistry);
+
+        bulkhead.execute(() -> assertThrows(Bulkhead.BulkheadFullException.class, () -> bulkhead.execute(() -> "inner")));
+
+        assertEquals(1, meterRegistry.counter("bulkhead.rejected", "name", "test").count());
+        assertEquals("free", bulkhead.execute(() -> "free"));
+    }
+
+    @Test
+    void testExecute_whenCallThrows_releaseSlot() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 0, meterRegistry);
+
+        assertThrows(IllegalStateException.class, () -> bulkhead.execute(() -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        assertEquals(0, bulkhead.activeCalls());
+    }
+
+    @Test
+    void testExecuteAsync_whenCallReturns_holdSlotUntilFutureCompletes() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 0, meterRegistry);
+        CompletableFuture<String> call = new CompletableFuture<>();
+
+        CompletableFuture<String> future = bulkhead.executeAsync(() -> call);
+        assertEquals(1, bulkhead.activeCalls());
+        assertThrows(Bulkhead.BulkheadFullException.class, () -> bulkhead.executeAsync(CompletableFuture::new));
+
+        call.complete("done");
+        assertEquals("done", future.join());
+        assertEquals(0, bulkhead.activeCalls());
+    }
+
+    @Test
+    void testExecuteAsync_whenCallThrows_releaseSlot() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 0, meterRegistry);
+
+        assertThrows(IllegalStateException.class, () -> bulkhead.executeAsync(() -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        assertEquals(0, bulkhead.activeCalls());
+    }
+
+    @Test
+    void testExecute_whenWaitingLongerThanMaxWait_rejectAfterWait() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 50, meterRegistry);
+
+        long waitedMillis = bulkhead.execute(() -> {
+            long start = System.nanoTime();
+            assertThrows(Bulkhead.BulkheadFullException.class, () -> bulkhead.execute(() -> "inner"));
+            return (System.nanoTime() - start) / 1_000_000;
+        });
+
+        assertTrue(waitedMillis >= 40);
+    }
+}
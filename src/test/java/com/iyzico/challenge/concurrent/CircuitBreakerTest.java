@@ -0,0 +1,183 @@
+package com.iyzico.challenge.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        CircuitBreaker.Settings settings = new CircuitBreaker.Settings();
+        settings.setWindowSize(10);
+        settings.setMinimumCalls(4);
+        settings.setFailureRateThreshold(50);
+        settings.setSlowCallMillis(1000);
+        settings.setSlowCallRateThreshold(50);
+        settings.setOpenMillis(5000);
+        settings.setHalfOpenCalls(2);
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new CircuitBreaker("test", settings, meterRegistry, clock::get);
+    }
+
+    @Test
+    void testExecute_whenFailuresBelowMinimumCalls_stayClosed() {
+        fail(3);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.isCallPermitted());
+    }
+
+    @Test
+    void testExecute_whenFailureRateReachesThreshold_openAndRejectWithoutCalling() {
+        succeed(2);
+        fail(2);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.isCallPermitted());
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(CircuitBreaker.CallNotPermittedException.class,
+                () -> circuitBreaker.execute(calls::incrementAndGet, result -> false));
+        assertEquals(0, calls.get());
+        assertEquals(1, meterRegistry.counter("circuit.breaker.not.permitted", "name", "test").count());
+    }
+
+    @Test
+    void testExecute_whenFailedResultPredicateMatches_countAsFailure() {
+        for (int i = 0; i < 4; i++) {
+            assertEquals("500", circuitBreaker.execute(() -> "500", "500"::equals));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void testExecute_whenSlowCallRateReachesThreshold_open() {
+        succeed(2);
+        for (int i = 0; i < 2; i++) {
+            circuitBreaker.execute(() -> clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500)), result -> false);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void testExecute_whenOldFailuresLeaveTheWindow_stayClosed() {
+        fail(1);
+        succeed(9);
+        fail(4);
+
+        // the window holds the last 10 calls: 4 failures
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testExecute_whenOpenTimeElapsesAndProbesSucceed_close() {
+        fail(4);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5000));
+
+        assertTrue(circuitBreaker.isCallPermitted());
+        succeed(1);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        succeed(1);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(1, meterRegistry.counter("circuit.breaker.transitions", "name", "test", "from", "half_open", "to", "closed").count());
+    }
+
+    @Test
+    void testExecute_whenProbeFails_openAgain() {
+        fail(4);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5000));
+
+        succeed(1);
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.isCallPermitted());
+    }
+
+    @Test
+    void testExecute_whenAllProbesAreTaken_rejectFurtherCalls() {
+        fail(4);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5000));
+
+        Integer probe = circuitBreaker.execute(() -> {
+            circuitBreaker.execute(() -> 1, result -> false);
+            // both probes taken, the first is still running
+            assertFalse(circuitBreaker.isCallPermitted());
+            assertThrows(CircuitBreaker.CallNotPermittedException.class, () -> circuitBreaker.execute(() -> 3, result -> false));
+            return 2;
+        }, result -> false);
+
+        assertEquals(2, probe);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testExecute_whenProbeHangs_countItAsFailedAfterSlowCallMillis() {
+        fail(4);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5000));
+
+        circuitBreaker.execute(() -> {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+            // the hanging probe counts as failed, so one healthy probe no longer closes the breaker
+            succeed(1);
+            assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+            return 1;
+        }, result -> false);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void testIsCallPermitted_whenAllProbesHang_openAgainInsteadOfStayingHalfOpen() {
+        fail(4);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5000));
+
+        circuitBreaker.execute(() -> circuitBreaker.execute(() -> {
+            assertFalse(circuitBreaker.isCallPermitted());
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+            assertFalse(circuitBreaker.isCallPermitted());
+            assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5000));
+            assertTrue(circuitBreaker.isCallPermitted());
+            return 1;
+        }, result -> false), result -> false);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void testStateGauge_whenOpened_reportCurrentState() {
+        fail(4);
+
+        assertEquals(1, meterRegistry.get("circuit.breaker.state").tags("name", "test", "state", "open").gauge().value());
+        assertEquals(0, meterRegistry.get("circuit.breaker.state").tags("name", "test", "state", "closed").gauge().value());
+    }
+
+    private void succeed(int times) {
+        for (int i = 0; i < times; i++) {
+            circuitBreaker.execute(() -> "200", result -> false);
+        }
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertThrows(IllegalStateException.class, () -> circuitBreaker.execute(() -> {
+                throw new IllegalStateException("remote call failed");
+            }, result -> false));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.iyzico.challenge.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private HashedTimingWheel timingWheel;
+
+    @BeforeEach
+    void setUp() {
+        // 8 buckets of 10 ms, so delays above 80 ms need more than one round
+        timingWheel = new HashedTimingWheel("test-timer", 10, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    void testSchedule_whenDelayElapses_runTaskOnce() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        HashedTimingWheel.Timeout timeout = timingWheel.schedule(fired::countDown, 250, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 240);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    void testSchedule_whenCancelled_doNotRunTask() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        HashedTimingWheel.Timeout timeout = timingWheel.schedule(runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        Thread.sleep(200);
+        assertEquals(0, runs.get());
+        assertFalse(timeout.isExpired());
+    }
+
+    @Test
+    void testSchedule_whenManyTimeouts_runAllOfThem() throws InterruptedException {
+        int timeouts = 10_000;
+        CountDownLatch fired = new CountDownLatch(timeouts);
+        for (int i = 0; i < timeouts; i++) {
+            timingWheel.schedule(fired::countDown, i % 300, TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -6,7 +6,9 @@ import com.iyzico.challenge.dto.SeatDto;
 import com.iyzico.challenge.exception.BusinessException;
 import com.iyzico.challenge.exception.Status;
 import com.iyzico.challenge.exception.TransactionCode;
+import com.iyzico.challenge.request.BulkSeatRequest;
 import com.iyzico.challenge.request.FlightRequest;
+import com.iyzico.challenge.request.SeatLayoutRequest;
 import com.iyzico.challenge.request.SeatRequest;
 import com.iyzico.challenge.response.*;
 import com.iyzico.challenge.service.DefaultFlightService;
@@ -26,6 +28,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -173,6 +176,54 @@ class FlightControllerTest {
         assertEquals(1L, responseObj.getBody().getData().getSeatId());
     }
 
+    @Test
+    void testAddSeats_whenLayoutValid_shouldReturnSeatIdsAndSuccess() throws Exception {
+        BulkSeatResponse bulkSeatResponse = new BulkSeatResponse();
+        BulkSeatResponseBody body = new BulkSeatResponseBody();
+        body.setSeatIds(List.of(1L, 2L));
+        body.setMessage("success");
+        bulkSeatResponse.setBody(new BaseBody<>(body));
+        bulkSeatResponse.setStatus(new Status(TransactionCode.SUCCESS));
+        SeatLayoutRequest layout = new SeatLayoutRequest();
+        layout.setRows(1);
+        layout.setLetters("AB");
+        BulkSeatRequest bulkSeatRequest = new BulkSeatRequest();
+        bulkSeatRequest.setLayout(layout);
+
+        Mockito.when(defaultFlightService.addSeats(Mockito.anyLong(), Mockito.any(BulkSeatRequest.class))).thenReturn(bulkSeatResponse);
+
+        var request = MockMvcRequestBuilders.post("/flight/add/seats/" + flightId)
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(bulkSeatRequest))
+                .accept("application/json");
+
+        var response = mockMvc.perform(request)
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+        BulkSeatResponse responseObj = objectMapper.readValue(response.getResponse().getContentAsString(), BulkSeatResponse.class);
+
+        assertEquals(2, responseObj.getBody().getData().getSeatIds().size());
+    }
+
+    @Test
+    void testAddSeats_whenLayoutLettersInvalid_shouldReturnBadRequest() throws Exception {
+        SeatLayoutRequest layout = new SeatLayoutRequest();
+        layout.setRows(1);
+        layout.setLetters("a-b");
+        BulkSeatRequest bulkSeatRequest = new BulkSeatRequest();
+        bulkSeatRequest.setLayout(layout);
+
+        var request = MockMvcRequestBuilders.post("/flight/add/seats/" + flightId)
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(bulkSeatRequest))
+                .accept("application/json");
+
+        mockMvc.perform(request)
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testDeleteSeat_whenIdsValid_shouldReturnAppropriateMessage() throws Exception {
         Mockito.when(defaultFlightService.deleteSeat(Mockito.anyLong(), Mockito.anyLong())).thenReturn(defaultMessageResponse);
@@ -251,9 +302,45 @@ class FlightControllerTest {
         assertEquals(1, responseObj.getBody().getData().getFlightList().get(0).getAvaliableSeats().size());
     }
 
+    @Test
+    void testStreamAllFlights_whenRequested_shouldWriteSameDocumentAsGetAllFlights() throws Exception {
+        FlightDto flightDto = new FlightDto();
+        flightDto.setFlightName("test");
+        flightDto.setPrice(BigDecimal.valueOf(1000));
+        List<SeatDto> seatDtoList = new ArrayList<>();
+        SeatDto seatDto = new SeatDto();
+        seatDto.setSeatName("test");
+        seatDtoList.add(seatDto);
+        flightDto.setAvaliableSeats(seatDtoList);
+
+        Mockito.doAnswer(invocation -> {
+            Consumer<FlightDto> flightConsumer = invocation.getArgument(0);
+            flightConsumer.accept(flightDto);
+            flightConsumer.accept(flightDto);
+            return null;
+        }).when(defaultFlightService).streamAllFlights(Mockito.any());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/flight/all/stream")
+                .accept("application/json");
+
+        MvcResult asyncResult = mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        MvcResult response = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+        String content = response.getResponse().getContentAsString();
+        DetailFlightResponse responseObj = objectMapper.readValue(content, DetailFlightResponse.class);
+
+        assertEquals("100", responseObj.getStatus().getCode());
+        assertEquals(2, responseObj.getBody().getData().getFlightList().size());
+        assertEquals(1, responseObj.getBody().getData().getFlightList().get(1).getAvaliableSeats().size());
+    }
+
     @Test
     void testBookSeat_whenIdsValid_shouldReturnAppropriateMessage() throws Exception {
-        Mockito.when(defaultFlightService.bookSeat(Mockito.anyLong(), Mockito.anyLong())).thenReturn(defaultMessageResponse);
+        Mockito.when(defaultFlightService.bookSeat(Mockito.anyLong(), Mockito.anyLong(), Mockito.isNull())).thenReturn(defaultMessageResponse);
 
         var request = MockMvcRequestBuilders.post("/flight/" + flightId + "/book/" + seatId)
                 .contentType("application/json")
@@ -267,5 +354,76 @@ class FlightControllerTest {
         assertEquals(200, response.getResponse().getStatus());
     }
 
+    @Test
+    void testBookSeat_whenIdempotencyKeyGiven_shouldPassKeyToService() throws Exception {
+        Mockito.when(defaultFlightService.bookSeat(flightId, seatId, "booking-1")).thenReturn(defaultMessageResponse);
+
+        var request = MockMvcRequestBuilders.post("/flight/" + flightId + "/book/" + seatId)
+                .header("Idempotency-Key", "booking-1")
+                .contentType("application/json")
+                .accept("application/json");
+
+        mockMvc.perform(request)
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        Mockito.verify(defaultFlightService).bookSeat(flightId, seatId, "booking-1");
+    }
+
+    @Test
+    void testBookSeatAsync_whenIdsValid_shouldReturnAcceptedWithBookingLocation() throws Exception {
+        Mockito.when(defaultFlightService.bookSeatAsync(flightId, seatId)).thenReturn(bookingResponse("PENDING"));
+
+        var request = MockMvcRequestBuilders.post("/flight/" + flightId + "/book/" + seatId + "/async")
+                .contentType("application/json")
+                .accept("application/json");
+
+        var response = mockMvc.perform(request)
+                .andDo(print())
+                .andExpect(status().isAccepted())
+                .andReturn();
+
+        assertEquals("/flight/booking/7", response.getResponse().getHeader("Location"));
+        assertTrue(response.getResponse().getContentAsString().contains("PENDING"));
+    }
+
+    @Test
+    void testGetBooking_whenBookingPendingAndWaitGiven_shouldAnswerOnceBookingIsDone() throws Exception {
+        Mockito.when(defaultFlightService.getBooking(7L)).thenReturn(bookingResponse("PENDING"), bookingResponse("CONFIRMED"));
+        Mockito.doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(defaultFlightService).whenBookingDone(Mockito.eq(7L), Mockito.any(Runnable.class));
+
+        MvcResult started = mockMvc.perform(MockMvcRequestBuilders.get("/flight/booking/7").param("waitMs", "1000"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        var response = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(started))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertTrue(response.getResponse().getContentAsString().contains("CONFIRMED"));
+    }
+
+    @Test
+    void testGetBooking_whenBookingNotExist_shouldReturnNotFound() throws Exception {
+        Mockito.when(defaultFlightService.getBooking(7L)).thenThrow(new BusinessException(TransactionCode.BOOKING_NOT_FOUND));
 
+        mockMvc.perform(MockMvcRequestBuilders.get("/flight/booking/7"))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+    private BookingResponse bookingResponse(String state) {
+        BookingResponseBody body = new BookingResponseBody();
+        body.setBookingId(7L);
+        body.setFlightId(flightId);
+        body.setSeatId(seatId);
+        body.setState(state);
+        BookingResponse bookingResponse = new BookingResponse();
+        bookingResponse.setBody(new BaseBody<>(body));
+        bookingResponse.setStatus(new Status(TransactionCode.SUCCESS));
+        return bookingResponse;
+    }
 }
@@ -0,0 +1,67 @@
+package com.iyzico.challenge.diagnostics;
+
+import com.iyzico.challenge.repository.SeatRepository;
+import com.iyzico.challenge.request.FlightRequest;
+import com.iyzico.challenge.request.SeatRequest;
+import com.iyzico.challenge.service.DefaultFlightService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards against holding a connection while the bank is called, the cause of the original pool exhaustion: a
+ * booking that runs inside a transaction, as with {@code @Transactional} on the booking or payment service, must
+ * fail in the tests' {@code fail} trace mode.
+ */
+@SpringBootTest
+class ConnectionHoldTracingTest {
+
+    @Autowired
+    private DefaultFlightService defaultFlightService;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long flightId;
+    private Long seatId;
+
+    @BeforeEach
+    void setUp() {
+        FlightRequest flightRequest = new FlightRequest();
+        flightRequest.setFlightName("ConnectionHoldFlight");
+        flightRequest.setPrice(BigDecimal.valueOf(100));
+        flightRequest.setDepartureTime("01-01-2030 10:00");
+        flightRequest.setArrivalTime("01-01-2030 12:00");
+        flightId = defaultFlightService.createFlight(flightRequest).getBody().getData().getFlightId();
+        SeatRequest seatRequest = new SeatRequest();
+        seatRequest.setSeatName("1A");
+        seatId = defaultFlightService.addSeat(flightId, seatRequest).getBody().getData().getSeatId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        defaultFlightService.deleteSeat(flightId, seatId);
+        defaultFlightService.deleteFlight(flightId);
+    }
+
+    @Test
+    void testBookSeat_whenCalledInsideTransaction_throwConnectionHoldViolationException() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        assertThrows(ConnectionHoldTracker.ConnectionHoldViolationException.class,
+                () -> transactionTemplate.execute(status -> defaultFlightService.bookSeat(flightId, seatId)));
+
+        assertFalse(seatRepository.findById(seatId).orElseThrow(IllegalStateException::new).getIsReserved());
+    }
+}
@@ -0,0 +1,74 @@
+package com.iyzico.challenge.diagnostics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConnectionHoldTrackerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nanoClock = new AtomicLong();
+
+    @Test
+    void testBeforeRemoteCall_whenConnectionHeldInFailMode_throwConnectionHoldViolationException() throws SQLException {
+        ConnectionHoldTracker tracker = tracker(ConnectionHoldTracker.Mode.FAIL);
+        DataSource dataSource = new TracingDataSource(targetDataSource(Mockito.mock(Connection.class)), tracker);
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(1, tracker.heldConnections());
+            assertThrows(ConnectionHoldTracker.ConnectionHoldViolationException.class, () -> tracker.beforeRemoteCall("BankService.pay"));
+        }
+
+        assertEquals(0, tracker.heldConnections());
+        tracker.beforeRemoteCall("BankService.pay");
+    }
+
+    @Test
+    void testBeforeRemoteCall_whenConnectionHeldInWarnMode_countViolation() throws SQLException {
+        ConnectionHoldTracker tracker = tracker(ConnectionHoldTracker.Mode.WARN);
+        DataSource dataSource = new TracingDataSource(targetDataSource(Mockito.mock(Connection.class)), tracker);
+
+        try (Connection connection = dataSource.getConnection()) {
+            tracker.beforeRemoteCall("BankService.pay");
+        }
+
+        assertEquals(1, meterRegistry.get(ConnectionHoldTracker.VIOLATIONS).tag("call", "BankService.pay").counter().count());
+    }
+
+    @Test
+    void testReleased_whenHeldBeyondThreshold_countViolationAndCloseConnection() throws SQLException {
+        ConnectionHoldTracker tracker = tracker(ConnectionHoldTracker.Mode.WARN);
+        Connection targetConnection = Mockito.mock(Connection.class);
+        Connection connection = new TracingDataSource(targetDataSource(targetConnection), tracker).getConnection();
+
+        nanoClock.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+        connection.close();
+        connection.close();
+
+        verify(targetConnection, times(1)).close();
+        assertEquals(1, meterRegistry.get(ConnectionHoldTracker.VIOLATIONS).tag("reason", "threshold").counter().count());
+        assertEquals(1, meterRegistry.get(ConnectionHoldTracker.HOLD_TIME).timer().count());
+        assertEquals(0, tracker.heldConnections());
+    }
+
+    private ConnectionHoldTracker tracker(ConnectionHoldTracker.Mode mode) {
+        return new ConnectionHoldTracker(meterRegistry, mode, 100, nanoClock::get);
+    }
+
+    private static DataSource targetDataSource(Connection connection) throws SQLException {
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
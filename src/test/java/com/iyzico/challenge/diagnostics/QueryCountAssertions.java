@@ -0,0 +1,30 @@
+package com.iyzico.challenge.diagnostics;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query budgets for tests: runs an operation and fails when Hibernate needed more statements or entity loads on
+ * the calling thread than the budget allows, e.g. after a change that loads a collection per row.
+ */
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    public static <T> T assertMaxQueries(String operation, long maxStatements, long maxEntityLoads, Supplier<T> action) {
+        T result;
+        QueryStatistics statistics = QueryStatistics.start();
+        try {
+            result = action.get();
+        } finally {
+            statistics.close();
+        }
+        assertTrue(statistics.getStatements() <= maxStatements,
+                operation + " ran " + statistics + ", the budget is " + maxStatements + " statements");
+        assertTrue(statistics.getEntityLoads() <= maxEntityLoads,
+                operation + " ran " + statistics + ", the budget is " + maxEntityLoads + " entity loads");
+        return result;
+    }
+}
@@ -0,0 +1,85 @@
+package com.iyzico.challenge.diagnostics;
+
+import com.iyzico.challenge.request.FlightRequest;
+import com.iyzico.challenge.request.SeatRequest;
+import com.iyzico.challenge.service.DefaultFlightService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The streamed catalog reads its pages on an async thread after the request thread has returned; those statements
+ * must count towards {@code GET /flight/all/stream}, once per request.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class QueryStatisticsFilterTest {
+
+    private static final String STREAM_ENDPOINT = "GET /flight/all/stream";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DefaultFlightService defaultFlightService;
+
+    @Autowired
+    private EndpointQueryStatistics endpointQueryStatistics;
+
+    private Long flightId;
+    private Long seatId;
+
+    @BeforeEach
+    void setUp() {
+        FlightRequest flightRequest = new FlightRequest();
+        flightRequest.setFlightName("QueryStatisticsFlight");
+        flightRequest.setPrice(BigDecimal.valueOf(100));
+        flightRequest.setDepartureTime("01-01-2030 10:00");
+        flightRequest.setArrivalTime("01-01-2030 12:00");
+        flightId = defaultFlightService.createFlight(flightRequest).getBody().getData().getFlightId();
+        SeatRequest seatRequest = new SeatRequest();
+        seatRequest.setSeatName("1A");
+        seatId = defaultFlightService.addSeat(flightId, seatRequest).getBody().getData().getSeatId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        defaultFlightService.deleteSeat(flightId, seatId);
+        defaultFlightService.deleteFlight(flightId);
+    }
+
+    @Test
+    void testStreamAllFlights_whenPagesReadOnAsyncThread_recordTheirStatements() throws Exception {
+        long requestsBefore = count("requests");
+        long statementsBefore = count("statements");
+
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders.get("/flight/all/stream"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
+                .andExpect(status().isOk());
+
+        // the flight ids of the page, the page's flights with their seats and the empty next page
+        assertEquals(requestsBefore + 1, count("requests"));
+        assertTrue(count("statements") - statementsBefore >= 3,
+                "stream recorded " + (count("statements") - statementsBefore) + " statements");
+    }
+
+    private long count(String key) {
+        Map<String, Object> stream = endpointQueryStatistics.snapshot().get(STREAM_ENDPOINT);
+        return stream == null ? 0 : (Long) stream.get(key);
+    }
+}
@@ -0,0 +1,97 @@
+package com.iyzico.challenge.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iyzico.challenge.exception.TransactionCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Books seats of one flight through the HTTP endpoint under contention and checks that no seat is sold twice and
+ * that every confirmed booking has exactly one row. The reports are logged for sizing the pool and the executors.
+ * <p>
+ * Runs with the functional tests in the failsafe {@code verify} phase, not with the unit and integration tests.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Slf4j
+class BookingLoadFT {
+
+    private static final String LETTERS = "ABCDE";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private LoadDriver loadDriver;
+
+    @BeforeEach
+    void setUp() {
+        loadDriver = new LoadDriver("http://localhost:" + port, objectMapper, dataSource, meterRegistry);
+    }
+
+    @Test
+    void testBookSeat_whenClosedLoopClientsCompeteForHotSeats_sellEverySeatAtMostOnce() throws Exception {
+        Long flightId = loadDriver.createFlight("LoadClosedLoop", BigDecimal.valueOf(100));
+        List<Long> seatIds = loadDriver.addSeats(flightId, 2, LETTERS);
+        LoadProfile profile = new LoadProfile();
+        profile.setMode(LoadProfile.Mode.CLOSED);
+        profile.setClients(20);
+        profile.setDuration(Duration.ofSeconds(8));
+        profile.setThinkTime(Duration.ofMillis(20));
+        profile.setSeatContention(LoadProfile.SeatContention.HOTSPOT);
+        profile.setHotSeats(2);
+
+        LoadReport report = loadDriver.run(profile, flightId, seatIds);
+        log.info(System.lineSeparator() + report);
+
+        assertNoDoubleBooking(report, flightId, seatIds.size());
+    }
+
+    @Test
+    void testBookSeat_whenOpenLoopRequestsArriveAtFixedRate_sellEverySeatAtMostOnce() throws Exception {
+        Long flightId = loadDriver.createFlight("LoadOpenLoop", BigDecimal.valueOf(100));
+        List<Long> seatIds = loadDriver.addSeats(flightId, 6, LETTERS);
+        LoadProfile profile = new LoadProfile();
+        profile.setMode(LoadProfile.Mode.OPEN);
+        profile.setRequestsPerSecond(50);
+        profile.setDuration(Duration.ofSeconds(5));
+        profile.setSeatContention(LoadProfile.SeatContention.UNIFORM);
+
+        LoadReport report = loadDriver.run(profile, flightId, seatIds);
+        log.info(System.lineSeparator() + report);
+
+        assertNoDoubleBooking(report, flightId, seatIds.size());
+    }
+
+    private void assertNoDoubleBooking(LoadReport report, Long flightId, int seats) {
+        assertEquals(0, report.getDoubleBookings());
+        long successes = report.count(TransactionCode.SUCCESS);
+        assertTrue(successes > 0 && successes <= seats, successes + " bookings for " + seats + " seats");
+        assertEquals(successes, jdbcTemplate.queryForObject("select count(*) from booked_seat where flight_id = ?", Long.class, flightId));
+        assertEquals(successes, jdbcTemplate.queryForObject("select count(distinct seat_id) from booked_seat where flight_id = ?", Long.class, flightId));
+    }
+}
@@ -0,0 +1,319 @@
+package com.iyzico.challenge.load;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iyzico.challenge.concurrent.VirtualThreads;
+import com.iyzico.challenge.exception.TransactionCode;
+import com.iyzico.challenge.request.BulkSeatRequest;
+import com.iyzico.challenge.request.FlightRequest;
+import com.iyzico.challenge.request.SeatLayoutRequest;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the booking endpoint of {@code FlightController} over HTTP with the load described by a
+ * {@link LoadProfile} and records the latency of every response in an HDR histogram per outcome. Bookings that
+ * the service confirmed twice for the same seat are counted as double bookings.
+ */
+public class LoadDriver {
+
+    public static final String IO_ERROR = "IO_ERROR";
+    public static final String TIMEOUT = "TIMEOUT";
+
+    private static final String HIKARI_ACQUIRE_TIMER = "hikaricp.connections.acquire";
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final long POOL_SAMPLE_INTERVAL_MILLIS = 5;
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    public LoadDriver(String baseUrl, ObjectMapper objectMapper, DataSource dataSource, MeterRegistry meterRegistry) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Long createFlight(String flightName, BigDecimal price) throws IOException, InterruptedException {
+        FlightRequest flightRequest = new FlightRequest();
+        flightRequest.setFlightName(flightName);
+        flightRequest.setOrigin("IST");
+        flightRequest.setDestination("AMS");
+        flightRequest.setDepartureTime("01-06-2030 10:00");
+        flightRequest.setArrivalTime("01-06-2030 13:30");
+        flightRequest.setPrice(price);
+        return post("/flight/create", flightRequest).path("body").path("data").path("flightId").asLong();
+    }
+
+    public List<Long> addSeats(Long flightId, int rows, String letters) throws IOException, InterruptedException {
+        SeatLayoutRequest layout = new SeatLayoutRequest();
+        layout.setRows(rows);
+        layout.setLetters(letters);
+        BulkSeatRequest bulkSeatRequest = new BulkSeatRequest();
+        bulkSeatRequest.setLayout(layout);
+        List<Long> seatIds = new ArrayList<>();
+        for (JsonNode seatId : post("/flight/add/seats/" + flightId, bulkSeatRequest).path("body").path("data").path("seatIds")) {
+            seatIds.add(seatId.asLong());
+        }
+        return seatIds;
+    }
+
+    public LoadReport run(LoadProfile profile, Long flightId, List<Long> seatIds) throws InterruptedException {
+        Run run = new Run(profile, flightId, seatIds);
+        Timer acquireTimer = meterRegistry == null ? null : meterRegistry.find(HIKARI_ACQUIRE_TIMER).timer();
+        long acquisitionsBefore = acquireTimer == null ? 0 : acquireTimer.count();
+        double acquireMillisBefore = acquireTimer == null ? 0 : acquireTimer.totalTime(TimeUnit.MILLISECONDS);
+        PoolSampler poolSampler = new PoolSampler(hikariPool());
+        poolSampler.start();
+
+        long start = System.nanoTime();
+        try {
+            if (profile.getMode() == LoadProfile.Mode.OPEN) {
+                runOpenLoop(run, start);
+            } else {
+                runClosedLoop(run, start);
+            }
+        } finally {
+            poolSampler.interrupt();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        poolSampler.join();
+
+        LoadReport.PoolWait poolWait = acquireTimer == null
+                ? new LoadReport.PoolWait(-1, 0, 0, poolSampler.maxThreadsAwaiting)
+                : new LoadReport.PoolWait(acquireTimer.count() - acquisitionsBefore,
+                acquireTimer.totalTime(TimeUnit.MILLISECONDS) - acquireMillisBefore,
+                acquireTimer.max(TimeUnit.MILLISECONDS), poolSampler.maxThreadsAwaiting);
+        return new LoadReport(profile, elapsed, run.latencies, run.doubleBookings(), poolWait);
+    }
+
+    /**
+     * Every client sends its next request when the previous response has arrived and the think time has passed.
+     */
+    private void runClosedLoop(Run run, long start) throws InterruptedException {
+        LoadProfile profile = run.profile;
+        long end = start + profile.getDuration().toNanos();
+        ExecutorService clients = VirtualThreads.isSupported() ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(profile.getClients());
+        try {
+            for (int i = 0; i < profile.getClients(); i++) {
+                clients.execute(() -> {
+                    while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                        Long seatId = run.nextSeat();
+                        long requestStart = System.nanoTime();
+                        String outcome;
+                        try {
+                            outcome = outcome(httpClient.send(run.bookingRequest(seatId), HttpResponse.BodyHandlers.ofString()));
+                        } catch (HttpTimeoutException e) {
+                            outcome = TIMEOUT;
+                        } catch (IOException e) {
+                            outcome = IO_ERROR;
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        run.record(seatId, outcome, requestStart);
+                        LockSupport.parkNanos(profile.getThinkTime().toNanos());
+                    }
+                });
+            }
+        } finally {
+            clients.shutdown();
+        }
+        awaitCompletion(clients, end, profile.getRequestTimeout());
+    }
+
+    /**
+     * Starts requests on a fixed schedule and measures each one from its planned start, so a request that had to
+     * wait behind slow ones is charged for the wait (no coordinated omission).
+     */
+    private void runOpenLoop(Run run, long start) throws InterruptedException {
+        LoadProfile profile = run.profile;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / profile.getRequestsPerSecond();
+        long end = start + profile.getDuration().toNanos();
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (long plannedStart = start; plannedStart < end; plannedStart += intervalNanos) {
+            long delay = plannedStart - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Long seatId = run.nextSeat();
+            long requestStart = plannedStart;
+            requests.add(httpClient.sendAsync(run.bookingRequest(seatId), HttpResponse.BodyHandlers.ofString())
+                    .handle((response, error) -> {
+                        run.record(seatId, response != null ? outcome(response) : failure(error), requestStart);
+                        return null;
+                    }));
+        }
+        try {
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture[0]))
+                    .get(profile.getRequestTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Open-loop requests did not complete in " + profile.getRequestTimeout(), e);
+        }
+    }
+
+    private static void awaitCompletion(ExecutorService clients, long end, Duration requestTimeout) throws InterruptedException {
+        long remaining = end - System.nanoTime() + requestTimeout.toNanos();
+        if (!clients.awaitTermination(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+            clients.shutdownNow();
+            throw new IllegalStateException("Load clients did not finish within " + requestTimeout + " after the run");
+        }
+    }
+
+    private String outcome(HttpResponse<String> response) {
+        try {
+            JsonNode code = objectMapper.readTree(response.body()).path("status").path("code");
+            if (code.isTextual()) {
+                return TransactionCode.fromId(Integer.parseInt(code.asText())).name();
+            }
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            // not one of the service's responses, e.g. an error page of the container
+        }
+        return "HTTP_" + response.statusCode();
+    }
+
+    private static String failure(Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        return cause instanceof HttpTimeoutException ? TIMEOUT : IO_ERROR;
+    }
+
+    private JsonNode post(String path, Object request) throws IOException, InterruptedException {
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request)))
+                .build();
+        HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("POST " + path + " failed with " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private HikariPoolMXBean hikariPool() {
+        try {
+            if (dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            }
+        } catch (SQLException e) {
+            // not a Hikari pool, nothing to sample
+        }
+        return null;
+    }
+
+    private class Run {
+        private final LoadProfile profile;
+        private final Long flightId;
+        private final List<Long> seatIds;
+        private final AtomicInteger sequence = new AtomicInteger();
+        private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+        private final Map<Long, AtomicLong> successesBySeat = new ConcurrentHashMap<>();
+
+        private Run(LoadProfile profile, Long flightId, List<Long> seatIds) {
+            this.profile = profile;
+            this.flightId = flightId;
+            this.seatIds = seatIds;
+        }
+
+        private Long nextSeat() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            switch (profile.getSeatContention()) {
+                case SEQUENTIAL:
+                    return seatIds.get(Math.floorMod(sequence.getAndIncrement(), seatIds.size()));
+                case HOTSPOT:
+                    if (random.nextDouble() < profile.getHotSeatShare()) {
+                        return seatIds.get(random.nextInt(Math.min(profile.getHotSeats(), seatIds.size())));
+                    }
+                    return seatIds.get(random.nextInt(seatIds.size()));
+                default:
+                    return seatIds.get(random.nextInt(seatIds.size()));
+            }
+        }
+
+        private HttpRequest bookingRequest(Long seatId) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/flight/" + flightId + "/book/" + seatId))
+                    .timeout(profile.getRequestTimeout())
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+        }
+
+        private void record(Long seatId, String outcome, long requestStart) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestStart);
+            latencies.computeIfAbsent(outcome, key -> new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3))
+                    .recordValue(Math.min(Math.max(micros, 1), HIGHEST_TRACKABLE_MICROS));
+            if (TransactionCode.SUCCESS.name().equals(outcome)) {
+                successesBySeat.computeIfAbsent(seatId, key -> new AtomicLong()).incrementAndGet();
+            }
+        }
+
+        private int doubleBookings() {
+            int doubleBookings = 0;
+            for (AtomicLong successes : successesBySeat.values()) {
+                if (successes.get() > 1) {
+                    doubleBookings++;
+                }
+            }
+            return doubleBookings;
+        }
+    }
+
+    private static class PoolSampler extends Thread {
+        private final HikariPoolMXBean pool;
+        private volatile int maxThreadsAwaiting;
+
+        private PoolSampler(HikariPoolMXBean pool) {
+            super("load-pool-sampler");
+            setDaemon(true);
+            this.pool = pool;
+        }
+
+        @Override
+        public void run() {
+            if (pool == null) {
+                return;
+            }
+            while (!isInterrupted()) {
+                maxThreadsAwaiting = Math.max(maxThreadsAwaiting, pool.getThreadsAwaitingConnection());
+                try {
+                    Thread.sleep(POOL_SAMPLE_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.iyzico.challenge.load;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+
+/**
+ * Shape of a {@link LoadDriver} run.
+ * <p>
+ * In {@link Mode#CLOSED closed-loop} mode {@code clients} clients each send a request, wait for the response and
+ * the {@code thinkTime}, then send the next one, so the offered load drops as the service slows down. In
+ * {@link Mode#OPEN open-loop} mode requests are started at {@code requestsPerSecond} whatever the response times
+ * are, and latency is measured from the planned start, so queueing in front of the service is not hidden.
+ */
+@Getter
+@Setter
+public class LoadProfile {
+
+    public enum Mode {
+        CLOSED,
+        OPEN
+    }
+
+    /**
+     * Which seat of the flight a request books.
+     */
+    public enum SeatContention {
+        /** every request takes the next seat in order, no two requests compete */
+        SEQUENTIAL,
+        /** a seat chosen uniformly at random */
+        UNIFORM,
+        /** {@code hotSeatShare} of the requests target the first {@code hotSeats} seats, the rest are uniform */
+        HOTSPOT
+    }
+
+    private Mode mode = Mode.CLOSED;
+    private int clients = 10;
+    private int requestsPerSecond = 100;
+    private Duration duration = Duration.ofSeconds(10);
+    private Duration thinkTime = Duration.ZERO;
+    private Duration requestTimeout = Duration.ofSeconds(60);
+    private SeatContention seatContention = SeatContention.UNIFORM;
+    private int hotSeats = 1;
+    private double hotSeatShare = 0.8;
+}
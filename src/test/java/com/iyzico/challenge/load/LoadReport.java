@@ -0,0 +1,107 @@
+package com.iyzico.challenge.load;
+
+import com.iyzico.challenge.exception.TransactionCode;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result of a {@link LoadDriver} run. Latencies are kept in microseconds per outcome: the name of the
+ * {@link TransactionCode} in the response, {@code HTTP_<status>} for other responses, or
+ * {@link LoadDriver#TIMEOUT} and {@link LoadDriver#IO_ERROR}.
+ */
+@Getter
+public class LoadReport {
+
+    private final LoadProfile profile;
+    private final Duration elapsed;
+    private final Map<String, Histogram> latencies;
+    private final int doubleBookings;
+    private final PoolWait poolWait;
+
+    LoadReport(LoadProfile profile, Duration elapsed, Map<String, Histogram> latencies, int doubleBookings, PoolWait poolWait) {
+        this.profile = profile;
+        this.elapsed = elapsed;
+        this.latencies = Collections.unmodifiableMap(new TreeMap<>(latencies));
+        this.doubleBookings = doubleBookings;
+        this.poolWait = poolWait;
+    }
+
+    public long count(TransactionCode transactionCode) {
+        return count(transactionCode.name());
+    }
+
+    public long count(String outcome) {
+        Histogram histogram = latencies.get(outcome);
+        return histogram == null ? 0 : histogram.getTotalCount();
+    }
+
+    public long totalCount() {
+        long total = 0;
+        for (Histogram histogram : latencies.values()) {
+            total += histogram.getTotalCount();
+        }
+        return total;
+    }
+
+    public double throughput() {
+        return totalCount() * 1000.0 / Math.max(elapsed.toMillis(), 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        String load = profile.getMode() == LoadProfile.Mode.OPEN ? profile.getRequestsPerSecond() + " req/s offered"
+                : profile.getClients() + " clients";
+        report.append(String.format("%s loop, %s, %s contention, %d requests in %d ms (%.1f req/s)%n",
+                profile.getMode(), load, profile.getSeatContention(), totalCount(), elapsed.toMillis(), throughput()));
+        report.append(String.format("%-28s %8s %10s %10s %10s %10s%n", "outcome", "count", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+            Histogram histogram = entry.getValue();
+            report.append(String.format("%-28s %8d %10.2f %10.2f %10.2f %10.2f%n", entry.getKey(), histogram.getTotalCount(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue())));
+        }
+        report.append("pool wait: ").append(poolWait).append(System.lineSeparator());
+        report.append("double bookings: ").append(doubleBookings);
+        return report.toString();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Connection pool pressure during the run: the time spent acquiring connections, if the pool reports it to
+     * Micrometer, and the most threads seen waiting for a connection.
+     */
+    @Getter
+    public static class PoolWait {
+        private final long acquisitions;
+        private final double totalMillis;
+        private final double maxMillis;
+        private final int maxThreadsAwaiting;
+
+        PoolWait(long acquisitions, double totalMillis, double maxMillis, int maxThreadsAwaiting) {
+            this.acquisitions = acquisitions;
+            this.totalMillis = totalMillis;
+            this.maxMillis = maxMillis;
+            this.maxThreadsAwaiting = maxThreadsAwaiting;
+        }
+
+        public double meanMillis() {
+            return acquisitions <= 0 ? 0 : totalMillis / acquisitions;
+        }
+
+        @Override
+        public String toString() {
+            String acquire = acquisitions < 0 ? "acquire time not instrumented"
+                    : String.format("%d acquisitions, mean %.2f ms, max %.2f ms", acquisitions, meanMillis(), maxMillis);
+            return acquire + ", up to " + maxThreadsAwaiting + " threads awaiting a connection";
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.exception.BusinessException;
+import com.iyzico.challenge.exception.TransactionCode;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingMetrics bookingMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookingMetrics = new BookingMetrics(meterRegistry);
+    }
+
+    @Test
+    void testTimeBooking_whenBookingSucceeds_recordSuccessOutcome() {
+        String result = bookingMetrics.timeBooking(BookingMetrics.BOOK, () -> "booked");
+
+        assertEquals("booked", result);
+        assertEquals(1, bookingTimer(BookingMetrics.BOOK, TransactionCode.SUCCESS.name()).count());
+    }
+
+    @Test
+    void testTimeBooking_whenBusinessExceptionThrown_recordTransactionCodeOutcome() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(BusinessException.class, () -> bookingMetrics.timeBooking(BookingMetrics.BOOK_WITH_IYZICO, () -> {
+                throw new BusinessException(TransactionCode.ALREADY_BOOKED);
+            }));
+        }
+
+        assertEquals(2, bookingTimer(BookingMetrics.BOOK_WITH_IYZICO, TransactionCode.ALREADY_BOOKED.name()).count());
+        assertNull(meterRegistry.find(BookingMetrics.BOOKING).tag("outcome", TransactionCode.SUCCESS.name()).timer());
+    }
+
+    @Test
+    void testTimePayment_whenOtherExceptionThrown_recordUnexpectedOutcome() {
+        assertThrows(IllegalStateException.class, () -> bookingMetrics.timePayment(BookingMetrics.BANK, () -> {
+            throw new IllegalStateException("bank down");
+        }));
+
+        Timer timer = meterRegistry.find(BookingMetrics.PAYMENT)
+                .tag("gateway", BookingMetrics.BANK)
+                .tag("outcome", BookingMetrics.UNEXPECTED)
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    void testTimeBooking_whenOperationUnknown_throwIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> bookingMetrics.timeBooking("refund", () -> "refunded"));
+    }
+
+    @Test
+    void testRecordBankCall_whenResultCodesDiffer_recordTimerPerResult() {
+        bookingMetrics.recordBankCall("200", 1000);
+        bookingMetrics.recordBankCall("200", 2000);
+        bookingMetrics.recordBankCall("500", 3000);
+
+        assertEquals(2, meterRegistry.get(BookingMetrics.BANK_CALL).tag("result", "200").timer().count());
+        assertEquals(1, meterRegistry.get(BookingMetrics.BANK_CALL).tag("result", "500").timer().count());
+    }
+
+    private Timer bookingTimer(String operation, String outcome) {
+        return meterRegistry.get(BookingMetrics.BOOKING).tag("operation", operation).tag("outcome", outcome).timer();
+    }
+}
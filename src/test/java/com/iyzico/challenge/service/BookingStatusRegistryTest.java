@@ -0,0 +1,78 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.exception.BusinessException;
+import com.iyzico.challenge.exception.TransactionCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingStatusRegistryTest {
+
+    private final BookingStatusRegistry bookingStatusRegistry = new BookingStatusRegistry(4);
+
+    @Test
+    void testRegister_whenCalled_returnPendingBookingWithSequentialId() {
+        long first = bookingStatusRegistry.register(1L, 10L);
+        long second = bookingStatusRegistry.register(1L, 11L);
+
+        assertEquals(first + 1, second);
+        BookingStatusRegistry.Booking booking = bookingStatusRegistry.get(second);
+        assertEquals(BookingStatusRegistry.State.PENDING, booking.getState());
+        assertEquals(1L, booking.getFlightId());
+        assertEquals(11L, booking.getSeatId());
+        assertNull(booking.getFailure());
+    }
+
+    @Test
+    void testComplete_whenConfirmedOrFailed_storeStateAndFailureCode() {
+        long confirmed = bookingStatusRegistry.register(1L, 10L);
+        long failed = bookingStatusRegistry.register(1L, 11L);
+
+        bookingStatusRegistry.confirm(confirmed);
+        bookingStatusRegistry.fail(failed, TransactionCode.PAYMENT_TIMEOUT);
+
+        assertEquals(BookingStatusRegistry.State.CONFIRMED, bookingStatusRegistry.get(confirmed).getState());
+        assertEquals(BookingStatusRegistry.State.FAILED, bookingStatusRegistry.get(failed).getState());
+        assertEquals(TransactionCode.PAYMENT_TIMEOUT, bookingStatusRegistry.get(failed).getFailure());
+        assertThrows(IllegalStateException.class, () -> bookingStatusRegistry.confirm(failed));
+    }
+
+    @Test
+    void testGet_whenIdUnknownOrSlotReused_returnNull() {
+        long oldest = bookingStatusRegistry.register(1L, 10L);
+        bookingStatusRegistry.confirm(oldest);
+        for (int i = 0; i < 4; i++) {
+            bookingStatusRegistry.confirm(bookingStatusRegistry.register(1L, 20L + i));
+        }
+
+        assertNull(bookingStatusRegistry.get(oldest));
+        assertNull(bookingStatusRegistry.get(0));
+        assertNull(bookingStatusRegistry.get(100));
+    }
+
+    @Test
+    void testRegister_whenSlotStillPending_returnErrorCode108() {
+        for (int i = 0; i < 4; i++) {
+            bookingStatusRegistry.register(1L, 10L + i);
+        }
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> bookingStatusRegistry.register(1L, 20L));
+        assertEquals(108, businessException.getTransactionCode().getId());
+    }
+
+    @Test
+    void testWhenDone_whenBookingPending_runWaiterOnCompletion() {
+        long bookingId = bookingStatusRegistry.register(1L, 10L);
+        AtomicInteger calls = new AtomicInteger();
+
+        bookingStatusRegistry.whenDone(bookingId, calls::incrementAndGet);
+        assertEquals(0, calls.get());
+        bookingStatusRegistry.confirm(bookingId);
+        assertEquals(1, calls.get());
+
+        bookingStatusRegistry.whenDone(bookingId, calls::incrementAndGet);
+        assertEquals(2, calls.get());
+    }
+}
@@ -0,0 +1,108 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.request.BulkSeatRequest;
+import com.iyzico.challenge.request.FlightRequest;
+import com.iyzico.challenge.request.SeatLayoutRequest;
+import com.iyzico.challenge.request.SeatRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+import static com.iyzico.challenge.diagnostics.QueryCountAssertions.assertMaxQueries;
+
+/**
+ * Statement and entity load budgets of the {@link DefaultFlightService} operations. The budgets are the current
+ * counts; an operation that needs more, e.g. one query per seat, fails here instead of in production.
+ */
+@SpringBootTest
+class DefaultFlightServiceQueryBudgetTest {
+
+    private static final int ROWS = 30;
+    private static final String LETTERS = "ABCDEF";
+
+    @Autowired
+    private DefaultFlightService defaultFlightService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long flightId;
+    private Long seatId;
+
+    @BeforeEach
+    void setUp() {
+        flightId = assertMaxQueries("createFlight", 3, 0,
+                () -> defaultFlightService.createFlight(flightRequest("QueryBudgetFlight"))).getBody().getData().getFlightId();
+        seatId = assertMaxQueries("addSeat", 5, 1,
+                () -> defaultFlightService.addSeat(flightId, seatRequest("1A"))).getBody().getData().getSeatId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from booked_seat where flight_id = ?", flightId);
+        jdbcTemplate.update("delete from seat where flight_id = ?", flightId);
+        defaultFlightService.deleteFlight(flightId);
+    }
+
+    @Test
+    void testAddSeats_whenLayoutIsLarge_stayWithinFixedBudget() {
+        SeatLayoutRequest layout = new SeatLayoutRequest();
+        layout.setFirstRow(2);
+        layout.setRows(ROWS);
+        layout.setLetters(LETTERS);
+        BulkSeatRequest bulkSeatRequest = new BulkSeatRequest();
+        bulkSeatRequest.setLayout(layout);
+
+        // ids come in blocks of 50, so the budget covers a sequence call per block and one per batch
+        assertMaxQueries("addSeats of " + ROWS * LETTERS.length() + " seats", 10, 1,
+                () -> defaultFlightService.addSeats(flightId, bulkSeatRequest));
+    }
+
+    @Test
+    void testUpdateFlightAndSeat_stayWithinBudget() {
+        assertMaxQueries("updateFlight", 2, 2, () -> defaultFlightService.updateFlight(flightId, flightRequest("QueryBudgetFlight")));
+        assertMaxQueries("updateSeat", 6, 5, () -> defaultFlightService.updateSeat(flightId, seatId, seatRequest("1B")));
+    }
+
+    @Test
+    void testDeleteSeat_stayWithinBudget() {
+        Long secondSeatId = defaultFlightService.addSeat(flightId, seatRequest("1C")).getBody().getData().getSeatId();
+
+        assertMaxQueries("deleteSeat", 6, 5, () -> defaultFlightService.deleteSeat(flightId, secondSeatId));
+    }
+
+    @Test
+    void testGetAllFlights_whenOneFlightChanged_reloadItWithOneStatement() {
+        defaultFlightService.getAllFlights();
+        assertMaxQueries("cached getAllFlights", 0, 0, () -> defaultFlightService.getAllFlights());
+
+        defaultFlightService.addSeat(flightId, seatRequest("1D"));
+        assertMaxQueries("getAllFlights after a seat change", 1, 0, () -> defaultFlightService.getAllFlights());
+    }
+
+    @Test
+    void testBookSeat_stayWithinBudget() {
+        // the bank call and the payment insert run on payment threads and are not counted
+        assertMaxQueries("bookSeat", 5, 1, () -> defaultFlightService.bookSeat(flightId, seatId));
+    }
+
+    private static FlightRequest flightRequest(String flightName) {
+        FlightRequest flightRequest = new FlightRequest();
+        flightRequest.setFlightName(flightName);
+        flightRequest.setPrice(BigDecimal.valueOf(100));
+        flightRequest.setDepartureTime("01-01-2030 10:00");
+        flightRequest.setArrivalTime("01-01-2030 12:00");
+        return flightRequest;
+    }
+
+    private static SeatRequest seatRequest(String seatName) {
+        SeatRequest seatRequest = new SeatRequest();
+        seatRequest.setSeatName(seatName);
+        return seatRequest;
+    }
+}
@@ -1,39 +1,68 @@
 package com.iyzico.challenge.service;
 
+import com.iyzico.challenge.concurrent.Bulkhead;
+import com.iyzico.challenge.concurrent.CircuitBreaker;
+import com.iyzico.challenge.concurrent.Deadline;
+import com.iyzico.challenge.concurrent.HashedTimingWheel;
+import com.iyzico.challenge.dto.FlightDto;
+import com.iyzico.challenge.dto.FlightSeatRowDto;
 import com.iyzico.challenge.entity.BookedSeat;
 import com.iyzico.challenge.entity.Flight;
 import com.iyzico.challenge.entity.Seat;
 import com.iyzico.challenge.exception.BusinessException;
-import com.iyzico.challenge.repository.BookedSeatRepository;
 import com.iyzico.challenge.repository.FlightRepository;
+import com.iyzico.challenge.repository.IdempotencyRecordRepository;
 import com.iyzico.challenge.repository.SeatRepository;
+import com.iyzico.challenge.request.BulkSeatRequest;
 import com.iyzico.challenge.request.FlightRequest;
+import com.iyzico.challenge.request.SeatLayoutRequest;
 import com.iyzico.challenge.request.SeatRequest;
+import com.iyzico.challenge.response.BookingResponse;
+import com.iyzico.challenge.response.BookingResponseBody;
+import com.iyzico.challenge.response.BulkSeatResponse;
 import com.iyzico.challenge.response.DefaultMessageResponse;
 import com.iyzico.challenge.response.DetailFlightResponse;
 import com.iyzico.challenge.response.FlightResponse;
 import com.iyzico.challenge.response.SeatResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,11 +77,37 @@ class DefaultFlightServiceTest {
     @Mock
     private SeatRepository seatRepository;
 
+    @Mock
+    private SeatReservations seatReservations;
+
     @Mock
     private PaymentServiceClients paymentServiceClients;
 
     @Mock
-    private BookedSeatRepository bookedSeatRepository;
+    private PaymentExecutor paymentExecutor;
+
+    private final HashedTimingWheel timingWheel = new HashedTimingWheel("seat-hold-timer", 100, TimeUnit.MILLISECONDS, 512);
+
+    @Spy
+    private SeatInventory seatInventory = new SeatInventory(null, timingWheel, 30000);
+
+    @Spy
+    private FlightCatalogCache flightCatalogCache = new FlightCatalogCache(new SimpleMeterRegistry(), 10000);
+
+    @Spy
+    private IdempotencyService idempotencyService = new IdempotencyService(Mockito.mock(IdempotencyRecordRepository.class), new RequestDeadlines(30000, 60000), 60000, 100);
+
+    @Spy
+    private BookingMetrics bookingMetrics = new BookingMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private PaymentGuards paymentGuards = paymentGuards(new SimpleMeterRegistry());
+
+    @Spy
+    private RequestDeadlines requestDeadlines = new RequestDeadlines(30000, 60000);
+
+    @Spy
+    private BookingStatusRegistry bookingStatusRegistry = new BookingStatusRegistry(16);
 
     private Long flightId;
     private Long seatId;
@@ -63,6 +118,11 @@ class DefaultFlightServiceTest {
         seatId = 1L;
     }
 
+    @AfterEach
+    void tearDown() {
+        timingWheel.stop();
+    }
+
     @Test
     void testCreateFlight_whenFlightAlreadyExist_returnErrorCode101() {
         when(flightRepository.findByFlightName(anyString())).thenReturn(Optional.of(getFlight()));
@@ -148,10 +208,105 @@ class DefaultFlightServiceTest {
     void testAddSeat_whenCalledValid_returnSuccess() {
         when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
         when(seatRepository.findBySeatNameAndFlight(anyString(), Mockito.any(Flight.class))).thenReturn(Optional.empty());
+        when(seatRepository.save(Mockito.any(Seat.class))).thenAnswer(invocation -> savedSeat(invocation.getArgument(0)));
 
         SeatResponse seatResponse = defaultFlightService.addSeat(flightId, getSeatRequest());
         assertEquals("100", seatResponse.getStatus().getCode());
         assertEquals("Seat added to flight " + flightId + " successfully" , seatResponse.getBody().getData().getMessage());
+        verify(flightRepository).addAvailableSeat(flightId);
+    }
+
+    @Test
+    void testAddSeats_whenLayoutGiven_insertAllSeatsWithOneDuplicateCheck() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatRepository.findSeatNamesByFlightAndSeatNameIn(Mockito.any(Flight.class), anyList())).thenReturn(Collections.emptyList());
+        when(seatRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Seat> seats = invocation.getArgument(0);
+            for (int i = 0; i < seats.size(); i++) {
+                seats.get(i).setSeatId((long) i + 1);
+            }
+            return seats;
+        });
+        SeatLayoutRequest layout = new SeatLayoutRequest();
+        layout.setRows(30);
+        layout.setLetters("ABCDEF");
+        BulkSeatRequest bulkSeatRequest = new BulkSeatRequest();
+        bulkSeatRequest.setLayout(layout);
+
+        BulkSeatResponse bulkSeatResponse = defaultFlightService.addSeats(flightId, bulkSeatRequest);
+        assertEquals("100", bulkSeatResponse.getStatus().getCode());
+        assertEquals(180, bulkSeatResponse.getBody().getData().getSeatIds().size());
+        ArgumentCaptor<List<Seat>> seats = ArgumentCaptor.forClass(List.class);
+        verify(seatRepository).saveAll(seats.capture());
+        assertEquals("1A", seats.getValue().get(0).getSeatName());
+        assertEquals("30F", seats.getValue().get(179).getSeatName());
+        verify(seatRepository, times(1)).findSeatNamesByFlightAndSeatNameIn(Mockito.any(Flight.class), anyList());
+        verify(flightRepository).addAvailableSeats(flightId, 180);
+        assertNotNull(seatInventory.tryHold(flightId, 180L));
+    }
+
+    @Test
+    void testAddSeats_whenRunInTransaction_registerSeatsOnlyAfterCommit() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatRepository.findSeatNamesByFlightAndSeatNameIn(Mockito.any(Flight.class), anyList())).thenReturn(Collections.emptyList());
+        when(seatRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Seat> seats = invocation.getArgument(0);
+            for (int i = 0; i < seats.size(); i++) {
+                seats.get(i).setSeatId((long) i + 1);
+            }
+            return seats;
+        });
+        BulkSeatRequest bulkSeatRequest = new BulkSeatRequest();
+        bulkSeatRequest.setSeatNames(Arrays.asList("1A", "1B"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            defaultFlightService.addSeats(flightId, bulkSeatRequest);
+            verify(seatInventory, never()).register(anyLong(), anyLong(), anyBoolean());
+            verify(flightCatalogCache, never()).invalidateFlight(flightId);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(seatInventory, times(2)).register(eq(flightId), anyLong(), eq(false));
+        verify(flightCatalogCache).invalidateFlight(flightId);
+    }
+
+    @Test
+    void testAddSeats_whenSeatAlreadyExist_returnErrorCode104() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatRepository.findSeatNamesByFlightAndSeatNameIn(Mockito.any(Flight.class), anyList())).thenReturn(Collections.singletonList("1A"));
+        BulkSeatRequest bulkSeatRequest = new BulkSeatRequest();
+        bulkSeatRequest.setSeatNames(Arrays.asList("1A", "1B"));
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.addSeats(flightId, bulkSeatRequest));
+        assertEquals(104, businessException.getTransactionCode().getId());
+        verify(seatRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testAddSeats_whenRequestRepeatsSeatName_returnErrorCode104() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        BulkSeatRequest bulkSeatRequest = new BulkSeatRequest();
+        bulkSeatRequest.setSeatNames(Arrays.asList("1A", "1A"));
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.addSeats(flightId, bulkSeatRequest));
+        assertEquals(104, businessException.getTransactionCode().getId());
+    }
+
+    @Test
+    void testAddSeats_whenBothNamesAndLayoutGiven_returnErrorCode113() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        SeatLayoutRequest layout = new SeatLayoutRequest();
+        layout.setRows(1);
+        layout.setLetters("AB");
+        BulkSeatRequest bulkSeatRequest = new BulkSeatRequest();
+        bulkSeatRequest.setSeatNames(Collections.singletonList("1A"));
+        bulkSeatRequest.setLayout(layout);
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.addSeats(flightId, bulkSeatRequest));
+        assertEquals(113, businessException.getTransactionCode().getId());
     }
 
     @Test
@@ -209,34 +364,24 @@ class DefaultFlightServiceTest {
     }
 
     @Test
-    void testGetAllFlights_whenCalledValid_returnListOfFlights() {
-        List<Flight> flightList = new ArrayList<>();
-        Flight flight = getFlight();
-        Flight flight2 = getFlight();
-        flight2.setFlightId(2L);
-        flight2.setFlightName("FlightName2");
-        Flight flight3 = getFlight();
-        flight3.setFlightId(3L);
-        flight3.setFlightName("FlightName3");
-        flightList.add(flight);
-        flightList.add(flight2);
-        flightList.add(flight3);
-
-        List<Seat> seatsForFlight = new ArrayList<>();
-        Seat seat = getSeat();
-        Seat seat2 = getSeat();
-        seat2.setSeatId(2L);
-        seat2.setSeatName("test2");
-        seatsForFlight.add(seat);
-        seatsForFlight.add(seat2);
+    void testUpdateSeat_whenSeatBookedConcurrently_returnErrorCode112() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatRepository.findBySeatIdAndFlight(anyLong(), Mockito.any(Flight.class))).thenReturn(Optional.of(getSeat()));
+        doThrow(new ObjectOptimisticLockingFailureException(Seat.class, seatId)).when(seatRepository).save(Mockito.any(Seat.class));
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.updateSeat(flightId, seatId, getSeatRequest()));
+        assertEquals(112, businessException.getTransactionCode().getId());
+    }
 
-        List<Seat> seatsForFlight2 = new ArrayList<>();
-        Seat seat3 = getSeat();
-        seat3.setSeatId(3L);
-        seatsForFlight2.add(seat3);
+    @Test
+    void testGetAllFlights_whenCalledValid_returnListOfFlights() {
+        List<FlightSeatRowDto> rows = new ArrayList<>();
+        rows.add(getFlightSeatRow(1L, "FlightName", 1L, "test"));
+        rows.add(getFlightSeatRow(1L, "FlightName", 2L, "test2"));
+        rows.add(getFlightSeatRow(2L, "FlightName2", 3L, "test"));
+        rows.add(getFlightSeatRow(3L, "FlightName3", null, null));
 
-        when(flightRepository.findAll()).thenReturn(flightList);
-        when(seatRepository.findAllByFlightAndIsReservedFalse(Mockito.any(Flight.class))).thenReturn(seatsForFlight).thenReturn(seatsForFlight2).thenReturn(new ArrayList<>());
+        when(flightRepository.findAllWithAvailableSeats()).thenReturn(rows);
 
         DetailFlightResponse detailFlightResponse = defaultFlightService.getAllFlights();
         assertEquals("100", detailFlightResponse.getStatus().getCode());
@@ -244,6 +389,52 @@ class DefaultFlightServiceTest {
         assertEquals(2, detailFlightResponse.getBody().getData().getFlightList().get(0).getAvaliableSeats().size());
         assertEquals(1, detailFlightResponse.getBody().getData().getFlightList().get(1).getAvaliableSeats().size());
         assertEquals(0, detailFlightResponse.getBody().getData().getFlightList().get(2).getAvaliableSeats().size());
+        assertEquals("FlightName2", detailFlightResponse.getBody().getData().getFlightList().get(1).getFlightName());
+        assertEquals("test2", detailFlightResponse.getBody().getData().getFlightList().get(0).getAvaliableSeats().get(1).getSeatName());
+    }
+
+    @Test
+    void testGetAllFlights_whenSeatAddedAfterRead_reloadOnlyThatFlight() {
+        List<FlightSeatRowDto> rows = new ArrayList<>();
+        rows.add(getFlightSeatRow(1L, "FlightName", 1L, "test"));
+        rows.add(getFlightSeatRow(2L, "FlightName2", null, null));
+        when(flightRepository.findAllWithAvailableSeats()).thenReturn(rows);
+        Flight flight2 = getFlight();
+        flight2.setFlightId(2L);
+        when(flightRepository.findById(2L)).thenReturn(Optional.of(flight2));
+        when(seatRepository.findBySeatNameAndFlight(anyString(), Mockito.any(Flight.class))).thenReturn(Optional.empty());
+        when(seatRepository.save(Mockito.any(Seat.class))).thenAnswer(invocation -> savedSeat(invocation.getArgument(0)));
+        List<FlightSeatRowDto> reloaded = new ArrayList<>();
+        reloaded.add(getFlightSeatRow(2L, "FlightName2", 2L, "updatedSeatName"));
+        when(flightRepository.findWithAvailableSeatsByFlightIds(Collections.singletonList(2L))).thenReturn(reloaded);
+
+        defaultFlightService.getAllFlights();
+        defaultFlightService.getAllFlights();
+        defaultFlightService.addSeat(2L, getSeatRequest());
+        DetailFlightResponse detailFlightResponse = defaultFlightService.getAllFlights();
+
+        verify(flightRepository, times(1)).findAllWithAvailableSeats();
+        assertEquals(2, detailFlightResponse.getBody().getData().getFlightList().size());
+        assertEquals(1, detailFlightResponse.getBody().getData().getFlightList().get(1).getAvaliableSeats().size());
+    }
+
+    @Test
+    void testStreamAllFlights_whenCalledValid_emitEachFlightWithItsSeats() {
+        List<FlightSeatRowDto> rows = new ArrayList<>();
+        rows.add(getFlightSeatRow(1L, "FlightName", 1L, "test"));
+        rows.add(getFlightSeatRow(1L, "FlightName", 2L, "test2"));
+        rows.add(getFlightSeatRow(2L, "FlightName2", null, null));
+
+        when(flightRepository.findFlightIdsAfter(eq(0L), any(Pageable.class))).thenReturn(Arrays.asList(1L, 2L));
+        when(flightRepository.findFlightIdsAfter(eq(2L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(flightRepository.findWithAvailableSeatsByFlightIds(Arrays.asList(1L, 2L))).thenReturn(rows);
+
+        List<FlightDto> flights = new ArrayList<>();
+        defaultFlightService.streamAllFlights(flights::add);
+        assertEquals(2, flights.size());
+        assertEquals(2, flights.get(0).getAvaliableSeats().size());
+        assertEquals("FlightName2", flights.get(1).getFlightName());
+        assertEquals(0, flights.get(1).getAvaliableSeats().size());
     }
 
     @Test
@@ -263,21 +454,67 @@ class DefaultFlightServiceTest {
         assertEquals(105, businessException.getTransactionCode().getId());
     }
 
+    @Test
+    void testBookSeat_whenFlightSoldOut_returnErrorCode109WithoutReadingSeat() {
+        Flight flight = getFlight();
+        flight.setTotalSeatCount(2);
+        flight.setAvailableSeatCount(0);
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(flight));
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+        assertEquals(109, businessException.getTransactionCode().getId());
+        verifyNoInteractions(seatRepository, seatReservations, paymentServiceClients);
+    }
+
     @Test
     void testBookSeat_whenSeatAlreadyBooked_returnErrorCode106() {
         Seat seat = getSeat();
         seat.setIsReserved(true);
         when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(false);
         when(seatRepository.findBySeatIdAndFlight(anyLong(), Mockito.any(Flight.class))).thenReturn(Optional.of(seat));
 
         BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
         assertEquals(106, businessException.getTransactionCode().getId());
+        verifyNoInteractions(paymentServiceClients);
+    }
+
+    @Test
+    void testBookSeat_whenSeatClaimedByConcurrentBooking_returnErrorCode111WithoutDatabaseOrPayment() {
+        assertNotNull(seatInventory.tryHold(flightId, seatId));
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+        assertEquals(111, businessException.getTransactionCode().getId());
+        verifyNoInteractions(flightRepository, seatRepository, seatReservations, paymentServiceClients);
+    }
+
+    @Test
+    void testBookSeat_whenSeatReservedInInventory_returnErrorCode106WithoutDatabaseOrPayment() {
+        seatInventory.register(flightId, seatId, true);
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+        assertEquals(106, businessException.getTransactionCode().getId());
+        verifyNoInteractions(flightRepository, seatRepository, seatReservations, paymentServiceClients);
+    }
+
+    @Test
+    void testBookSeat_whenPaymentServiceReturnError_releaseSeat() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(new RuntimeException());
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+
+        assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+        assertNotNull(seatInventory.tryHold(flightId, seatId));
+        verify(seatReservations).release(flightId, seatId);
+        verify(flightCatalogCache).invalidateFlight(flightId);
     }
 
     @Test
     void testBookSeat_whenPaymentServiceReturnError_returnErrorCode107() {
         when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
-        when(seatRepository.findBySeatIdAndFlight(anyLong(), Mockito.any(Flight.class))).thenReturn(Optional.of(getSeat()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
         CompletableFuture<String> future = new CompletableFuture<>();
         future.completeExceptionally(new RuntimeException());
         when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
@@ -286,16 +523,267 @@ class DefaultFlightServiceTest {
         assertEquals(107, businessException.getTransactionCode().getId());
     }
 
+    @Test
+    void testBookSeat_whenPaymentExecutorRejects_returnErrorCode108() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(new RejectedExecutionException());
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+        assertEquals(108, businessException.getTransactionCode().getId());
+    }
+
+    @Test
+    void testBookSeat_whenBankCircuitBreakerIsOpen_returnErrorCode107WithoutPaying() {
+        CircuitBreaker bankCircuitBreaker = paymentGuards.getBankCircuitBreaker();
+        for (int i = 0; i < 10; i++) {
+            assertThrows(IllegalStateException.class, () -> bankCircuitBreaker.execute(() -> {
+                throw new IllegalStateException("bank down");
+            }, response -> false));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, bankCircuitBreaker.getState());
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+        assertEquals(107, businessException.getTransactionCode().getId());
+        verifyNoInteractions(paymentServiceClients, seatRepository, seatReservations);
+        assertNotNull(seatInventory.tryHold(flightId, seatId));
+    }
+
+    @Test
+    void testBookSeat_whenBankBulkheadIsFull_returnErrorCode108() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        Bulkhead bankBulkhead = paymentGuards.getBankBulkhead();
+        BusinessException businessException = bankBulkhead.execute(() -> {
+            // the only slot is taken by this call
+            return assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+        });
+
+        assertEquals(108, businessException.getTransactionCode().getId());
+        verifyNoInteractions(paymentServiceClients);
+        verify(seatReservations).release(flightId, seatId);
+    }
+
+    @Test
+    void testBookSeat_whenPaymentOutlivesDeadline_holdBankBulkheadSlotUntilPaymentCompletes() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+        runPaymentFollowUpsInline();
+
+        try (Deadline.Scope scope = Deadline.after(100).bind()) {
+            assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+        }
+        assertEquals(1, paymentGuards.getBankBulkhead().activeCalls());
+
+        future.complete("success");
+        assertEquals(0, paymentGuards.getBankBulkhead().activeCalls());
+    }
+
+    @Test
+    void testBookSeatAsync_whenBankBulkheadIsFull_returnErrorCode108AndReleaseSeat() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        Bulkhead bankBulkhead = paymentGuards.getBankBulkhead();
+        BusinessException businessException = bankBulkhead.execute(() -> {
+            // the only slot is taken by this call
+            return assertThrows(BusinessException.class, () -> defaultFlightService.bookSeatAsync(flightId, seatId));
+        });
+
+        assertEquals(108, businessException.getTransactionCode().getId());
+        verifyNoInteractions(paymentServiceClients);
+        verify(seatReservations).release(flightId, seatId);
+        assertNotNull(seatInventory.tryHold(flightId, seatId));
+    }
+
+    @Test
+    void testBookSeat_whenDeadlineHasPassed_returnErrorCode114WithoutClaimingSeat() {
+        try (Deadline.Scope scope = Deadline.after(0).bind()) {
+            BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+            assertEquals(114, businessException.getTransactionCode().getId());
+        }
+        verifyNoInteractions(paymentServiceClients, seatRepository, seatReservations, flightRepository);
+    }
+
+    @Test
+    void testBookSeat_whenPaymentOutlivesDeadline_returnErrorCode114AndBookWhenPaymentSucceeds() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+        runPaymentFollowUpsInline();
+
+        try (Deadline.Scope scope = Deadline.after(100).bind()) {
+            BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+            assertEquals(114, businessException.getTransactionCode().getId());
+        }
+        verify(seatReservations, never()).release(flightId, seatId);
+        BusinessException held = assertThrows(BusinessException.class, () -> seatInventory.tryHold(flightId, seatId));
+        assertEquals(111, held.getTransactionCode().getId());
+
+        future.complete("success");
+        verify(seatReservations).book(any(Flight.class), eq(seatId));
+        verify(seatReservations, never()).release(flightId, seatId);
+        BusinessException reserved = assertThrows(BusinessException.class, () -> seatInventory.tryHold(flightId, seatId));
+        assertEquals(106, reserved.getTransactionCode().getId());
+    }
+
+    @Test
+    void testBookSeat_whenPaymentOutlivesDeadlineAndFails_releaseSeatWhenPaymentFails() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+        runPaymentFollowUpsInline();
+
+        try (Deadline.Scope scope = Deadline.after(100).bind()) {
+            assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+        }
+        verify(seatReservations, never()).release(flightId, seatId);
+
+        future.completeExceptionally(new RuntimeException("bank down"));
+        verify(seatReservations).release(flightId, seatId);
+        verify(seatReservations, never()).book(any(Flight.class), anyLong());
+        assertNotNull(seatInventory.tryHold(flightId, seatId));
+    }
+
+    @Test
+    void testBookSeat_whenPaymentOutlivesDeadline_keepHoldFromExpiringUntilPaymentCompletes() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+        runPaymentFollowUpsInline();
+
+        try (Deadline.Scope scope = Deadline.after(100).bind()) {
+            assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+        }
+        verify(seatInventory).keep(any(SeatInventory.Hold.class));
+
+        future.completeExceptionally(new RuntimeException("bank down"));
+        verify(seatInventory).free(any(SeatInventory.Hold.class));
+        assertNotNull(seatInventory.tryHold(flightId, seatId));
+    }
+
+    @Test
+    void testBookSeat_whenRetriedAfterPaymentOutlivedDeadline_returnSettledResultWithoutPayingAgain() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+        runPaymentFollowUpsInline();
+
+        try (Deadline.Scope scope = Deadline.after(100).bind()) {
+            BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId, "booking-1"));
+            assertEquals(114, businessException.getTransactionCode().getId());
+        }
+        future.complete("success");
+
+        DefaultMessageResponse retry = defaultFlightService.bookSeat(flightId, seatId, "booking-1");
+        assertEquals("100", retry.getStatus().getCode());
+        verify(paymentServiceClients, times(1)).call(any(BigDecimal.class));
+    }
+
+    @Test
+    void testBookSeat_whenPaymentTaskDroppedAfterDeadline_returnErrorCode114() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(new Deadline.DeadlineExceededException("Payment task dropped"));
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+        assertEquals(114, businessException.getTransactionCode().getId());
+    }
+
+    @Test
+    void testBookSeatAsync_whenPaymentSucceeds_returnPendingThenConfirm() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+        runPaymentFollowUpsInline();
+
+        BookingResponseBody pending = defaultFlightService.bookSeatAsync(flightId, seatId).getBody().getData();
+        assertEquals("PENDING", pending.getState());
+        verify(seatReservations, never()).book(any(Flight.class), anyLong());
+
+        future.complete("success");
+        BookingResponse booking = defaultFlightService.getBooking(pending.getBookingId());
+        assertEquals("CONFIRMED", booking.getBody().getData().getState());
+        verify(seatReservations).book(any(Flight.class), eq(seatId));
+        verify(paymentExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void testBookSeatAsync_whenPaymentOutlivesDeadline_keepBookingPendingUntilPaymentCompletes() throws InterruptedException {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+        when(requestDeadlines.defaultDeadline()).thenReturn(Deadline.after(10));
+        runPaymentFollowUpsInline();
+
+        Long bookingId = defaultFlightService.bookSeatAsync(flightId, seatId).getBody().getData().getBookingId();
+        Thread.sleep(50);
+        assertEquals("PENDING", defaultFlightService.getBooking(bookingId).getBody().getData().getState());
+        verify(seatReservations, never()).release(flightId, seatId);
+
+        future.complete("success");
+        assertEquals("CONFIRMED", defaultFlightService.getBooking(bookingId).getBody().getData().getState());
+        verify(seatReservations).book(any(Flight.class), eq(seatId));
+    }
+
+    @Test
+    void testBookSeatAsync_whenPaymentFails_failBookingAndReleaseSeat() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+        runPaymentFollowUpsInline();
+
+        Long bookingId = defaultFlightService.bookSeatAsync(flightId, seatId).getBody().getData().getBookingId();
+        future.completeExceptionally(new RuntimeException("bank down"));
+
+        BookingResponseBody booking = defaultFlightService.getBooking(bookingId).getBody().getData();
+        assertEquals("FAILED", booking.getState());
+        assertEquals(107, booking.getFailureCode());
+        verify(seatReservations).release(flightId, seatId);
+        verify(flightCatalogCache).invalidateFlight(flightId);
+        verify(seatReservations, never()).book(any(Flight.class), anyLong());
+        assertNotNull(seatInventory.tryHold(flightId, seatId));
+    }
+
+    @Test
+    void testBookSeatAsync_whenSeatAlreadyBooked_returnErrorCode106WithoutBooking() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(false);
+        when(seatRepository.findBySeatIdAndFlight(eq(seatId), any(Flight.class))).thenReturn(Optional.of(getSeat()));
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeatAsync(flightId, seatId));
+        assertEquals(106, businessException.getTransactionCode().getId());
+        verifyNoInteractions(paymentServiceClients);
+    }
+
+    @Test
+    void testGetBooking_whenBookingNotExist_returnErrorCode115() {
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.getBooking(42L));
+        assertEquals(115, businessException.getTransactionCode().getId());
+    }
+
     @Test
     void testBookSeat_whenUniqueConstraintViolationOccurs_returnErrorCode106() {
         when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
-        when(seatRepository.findBySeatIdAndFlight(anyLong(), Mockito.any(Flight.class))).thenReturn(Optional.of(getSeat()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
         CompletableFuture<String> future = new CompletableFuture<>();
         future.complete("success");
         DataIntegrityViolationException ex = new DataIntegrityViolationException("test");
 
         when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
-        doThrow(ex).when(bookedSeatRepository).save(Mockito.any(BookedSeat.class));
+        doThrow(ex).when(seatReservations).book(Mockito.any(Flight.class), eq(seatId));
 
         BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
         assertEquals(106, businessException.getTransactionCode().getId());
@@ -304,7 +792,7 @@ class DefaultFlightServiceTest {
     @Test
     void testBookSeat_whenCalledValid_returnSuccess() {
         when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
-        when(seatRepository.findBySeatIdAndFlight(anyLong(), Mockito.any(Flight.class))).thenReturn(Optional.of(getSeat()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
         CompletableFuture<String> future = new CompletableFuture<>();
         future.complete("success");
         when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
@@ -312,6 +800,66 @@ class DefaultFlightServiceTest {
         DefaultMessageResponse defaultMessageResponse = defaultFlightService.bookSeat(flightId, seatId);
         assertEquals("100", defaultMessageResponse.getStatus().getCode());
         assertEquals("Seat " + seatId + " booked successfully", defaultMessageResponse.getBody().getData().getMessage());
+        BusinessException businessException = assertThrows(BusinessException.class, () -> seatInventory.tryHold(flightId, seatId));
+        assertEquals(106, businessException.getTransactionCode().getId());
+        verify(seatRepository, never()).findBySeatIdAndFlight(anyLong(), Mockito.any(Flight.class));
+        verify(seatRepository, never()).save(Mockito.any(Seat.class));
+    }
+
+    @Test
+    void testBookSeat_whenBookingStoreFailsOnce_retryAndReturnSuccess() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.complete("success");
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+        when(seatReservations.book(any(Flight.class), eq(seatId)))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenReturn(new BookedSeat());
+
+        DefaultMessageResponse defaultMessageResponse = defaultFlightService.bookSeat(flightId, seatId);
+        assertEquals("100", defaultMessageResponse.getStatus().getCode());
+        verify(seatReservations, times(2)).book(any(Flight.class), eq(seatId));
+    }
+
+    @Test
+    void testBookSeat_whenBookingCannotBeStored_returnErrorCode116AndKeepSeatClaimed() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.complete("success");
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+        when(seatReservations.book(any(Flight.class), eq(seatId))).thenThrow(new DataAccessResourceFailureException("database down"));
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> defaultFlightService.bookSeat(flightId, seatId));
+        assertEquals(116, businessException.getTransactionCode().getId());
+        verify(seatReservations, times(3)).book(any(Flight.class), eq(seatId));
+        verify(seatReservations, never()).release(flightId, seatId);
+        BusinessException reserved = assertThrows(BusinessException.class, () -> seatInventory.tryHold(flightId, seatId));
+        assertEquals(106, reserved.getTransactionCode().getId());
+    }
+
+    @Test
+    void testBookSeat_whenRetriedWithSameIdempotencyKey_returnFirstResultWithoutPayingAgain() {
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(getFlight()));
+        when(seatReservations.claim(flightId, seatId)).thenReturn(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.complete("success");
+        when(paymentServiceClients.call(any(BigDecimal.class))).thenReturn(future);
+
+        DefaultMessageResponse first = defaultFlightService.bookSeat(flightId, seatId, "booking-1");
+        DefaultMessageResponse retry = defaultFlightService.bookSeat(flightId, seatId, "booking-1");
+
+        assertEquals("100", retry.getStatus().getCode());
+        assertEquals(first.getBody().getData().getMessage(), retry.getBody().getData().getMessage());
+        verify(paymentServiceClients, times(1)).call(any(BigDecimal.class));
+    }
+
+    private void runPaymentFollowUpsInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(paymentExecutor).execute(any(Runnable.class));
     }
 
     private FlightRequest getFlightRequest() {
@@ -340,12 +888,23 @@ class DefaultFlightServiceTest {
         return flight;
     }
 
+    private FlightSeatRowDto getFlightSeatRow(Long flightId, String flightName, Long seatId, String seatName) {
+        Flight flight = getFlight();
+        return new FlightSeatRowDto(flightId, flightName, flight.getOrigin(), flight.getDestination(),
+                flight.getDepartureTime(), flight.getArrivalTime(), flight.getPrice(), 2, 1, seatId, seatName);
+    }
+
     private SeatRequest getSeatRequest() {
         SeatRequest seatRequest = new SeatRequest();
         seatRequest.setSeatName("updatedSeatName");
         return seatRequest;
     }
 
+    private Seat savedSeat(Seat seat) {
+        seat.setSeatId(seatId);
+        return seat;
+    }
+
     private Seat getSeat() {
         Seat seat = new Seat();
         seat.setSeatId(seatId);
@@ -357,5 +916,15 @@ class DefaultFlightServiceTest {
         return seat;
     }
 
+    private static PaymentGuards paymentGuards(SimpleMeterRegistry meterRegistry) {
+        // default thresholds, one slot per provider
+        return new PaymentGuards(
+                new CircuitBreaker("bank", new CircuitBreaker.Settings(), meterRegistry),
+                new Bulkhead("bank", 1, 0, meterRegistry),
+                new CircuitBreaker("iyzico", new CircuitBreaker.Settings(), meterRegistry),
+                new Bulkhead("iyzico", 1, 0, meterRegistry),
+                60000);
+    }
+
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.dto.FlightDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightCatalogCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FlightCatalogCache flightCatalogCache;
+    private FakeLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        flightCatalogCache = new FlightCatalogCache(meterRegistry, 3);
+        loader = new FakeLoader();
+        loader.flights.put(1L, flight("Flight1"));
+        loader.flights.put(2L, flight("Flight2"));
+    }
+
+    @Test
+    void testGetCatalog_whenNothingChanged_serveSnapshot() {
+        List<FlightDto> first = flightCatalogCache.getCatalog(loader);
+        List<FlightDto> second = flightCatalogCache.getCatalog(loader);
+
+        assertSame(first, second);
+        assertEquals(1, loader.loadAllCalls);
+        assertEquals(1, meterRegistry.counter("flight.catalog.cache.hits").count());
+        assertEquals(1, meterRegistry.counter("flight.catalog.cache.misses").count());
+    }
+
+    @Test
+    void testGetCatalog_whenFlightInvalidated_reloadOnlyThatFlight() {
+        flightCatalogCache.getCatalog(loader);
+        long version = flightCatalogCache.version();
+        loader.flights.put(2L, flight("Flight2Updated"));
+
+        flightCatalogCache.invalidateFlight(2L);
+        List<FlightDto> catalog = flightCatalogCache.getCatalog(loader);
+
+        assertTrue(flightCatalogCache.version() > version);
+        assertEquals(1, loader.loadAllCalls);
+        assertEquals(List.of(List.of(2L)), loader.loadCalls);
+        assertEquals("Flight2Updated", catalog.get(1).getFlightName());
+    }
+
+    @Test
+    void testGetCatalog_whenCatalogInvalidated_reloadAllFlights() {
+        flightCatalogCache.getCatalog(loader);
+        loader.flights.put(3L, flight("Flight3"));
+
+        flightCatalogCache.invalidateCatalog();
+        List<FlightDto> catalog = flightCatalogCache.getCatalog(loader);
+
+        assertEquals(2, loader.loadAllCalls);
+        assertEquals(3, catalog.size());
+    }
+
+    @Test
+    void testGetCatalog_whenCatalogExceedsMaxFlights_evictAndDoNotPublishSnapshot() {
+        for (long flightId = 3; flightId <= 5; flightId++) {
+            loader.flights.put(flightId, flight("Flight" + flightId));
+        }
+
+        assertEquals(5, flightCatalogCache.getCatalog(loader).size());
+        assertEquals(5, flightCatalogCache.getCatalog(loader).size());
+
+        assertEquals(2, meterRegistry.counter("flight.catalog.cache.misses").count());
+        assertTrue(meterRegistry.counter("flight.catalog.cache.evictions").count() >= 2);
+    }
+
+    private static FlightDto flight(String flightName) {
+        FlightDto flightDto = new FlightDto();
+        flightDto.setFlightName(flightName);
+        flightDto.setAvaliableSeats(new ArrayList<>());
+        return flightDto;
+    }
+
+    private static class FakeLoader implements FlightCatalogCache.Loader {
+        private final Map<Long, FlightDto> flights = new LinkedHashMap<>();
+        private final List<List<Long>> loadCalls = new ArrayList<>();
+        private int loadAllCalls;
+
+        @Override
+        public void loadAll(BiConsumer<Long, FlightDto> consumer) {
+            loadAllCalls++;
+            flights.forEach(consumer);
+        }
+
+        @Override
+        public void load(Collection<Long> flightIds, BiConsumer<Long, FlightDto> consumer) {
+            loadCalls.add(new ArrayList<>(flightIds));
+            for (Long flightId : flightIds) {
+                consumer.accept(flightId, flights.get(flightId));
+            }
+        }
+    }
+}
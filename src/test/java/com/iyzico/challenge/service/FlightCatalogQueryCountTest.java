@@ -0,0 +1,103 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.dto.FlightDto;
+import com.iyzico.challenge.entity.Flight;
+import com.iyzico.challenge.entity.Seat;
+import com.iyzico.challenge.repository.FlightRepository;
+import com.iyzico.challenge.repository.SeatRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Guards {@link DefaultFlightService#getAllFlights()} against N+1 queries: the whole catalog must be loaded with a
+ * single statement, however many flights it holds, and a repeated read must be served from the catalog cache.
+ */
+@SpringBootTest
+class FlightCatalogQueryCountTest {
+
+    private static final int FLIGHTS = 20;
+    private static final int SEATS_PER_FLIGHT = 3;
+
+    @Autowired
+    private DefaultFlightService defaultFlightService;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private FlightCatalogCache flightCatalogCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Flight> flights = new ArrayList<>();
+    private final List<Seat> seats = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < FLIGHTS; i++) {
+            Flight flight = new Flight();
+            flight.setFlightName("QueryCountFlight" + i);
+            flight.setPrice(BigDecimal.valueOf(100));
+            flights.add(flightRepository.save(flight));
+            for (int j = 0; j < SEATS_PER_FLIGHT; j++) {
+                Seat seat = new Seat();
+                seat.setSeatName("Seat" + j);
+                seat.setFlight(flight);
+                // the first seat of every flight is taken
+                seat.setIsReserved(j == 0);
+                seats.add(seatRepository.save(seat));
+            }
+        }
+        // the rows above were written around the service
+        flightCatalogCache.invalidateCatalog();
+    }
+
+    @AfterEach
+    void tearDown() {
+        seatRepository.deleteAll(seats);
+        flightRepository.deleteAll(flights);
+        flightCatalogCache.invalidateCatalog();
+    }
+
+    @Test
+    void testGetAllFlights_whenManyFlightsExist_runSingleQueryThenServeFromCache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            List<FlightDto> flightList = defaultFlightService.getAllFlights().getBody().getData().getFlightList();
+
+            assertEquals(1, statistics.getPrepareStatementCount());
+            Map<String, FlightDto> flightsByName = flightList.stream()
+                    .collect(Collectors.toMap(FlightDto::getFlightName, Function.identity(), (first, second) -> first));
+            for (Flight flight : flights) {
+                assertEquals(SEATS_PER_FLIGHT - 1, flightsByName.get(flight.getFlightName()).getAvaliableSeats().size());
+            }
+
+            statistics.clear();
+            defaultFlightService.getAllFlights();
+            assertEquals(0, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.entity.Flight;
+import com.iyzico.challenge.entity.Seat;
+import com.iyzico.challenge.repository.FlightRepository;
+import com.iyzico.challenge.repository.SeatRepository;
+import com.iyzico.challenge.request.BulkSeatRequest;
+import com.iyzico.challenge.request.SeatLayoutRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards the pooled id generation: a bulk seat insert must reserve its ids with a few sequence calls instead of one
+ * per seat, and {@link IdSequenceAligner} must move a sequence past rows that were written without it.
+ */
+@SpringBootTest
+@Slf4j
+class IdAllocationQueryCountTest {
+
+    private static final int ROWS = 30;
+    private static final String LETTERS = "ABCDEF";
+
+    @Autowired
+    private DefaultFlightService defaultFlightService;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private IdSequenceAligner idSequenceAligner;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Flight flight;
+    private Long insertedFlightId;
+
+    @AfterEach
+    void tearDown() {
+        if (flight != null) {
+            List<Seat> seats = seatRepository.findAllByFlightAndIsReservedFalse(flight);
+            seatRepository.deleteAll(seats);
+            flightRepository.delete(flight);
+        }
+        if (insertedFlightId != null) {
+            jdbcTemplate.update("delete from flight where flight_id = ?", insertedFlightId);
+        }
+    }
+
+    @Test
+    void testAddSeats_whenLayoutIsLarge_reserveIdsInBlocks() {
+        flight = new Flight();
+        flight.setFlightName("IdAllocationFlight");
+        flight.setPrice(BigDecimal.valueOf(100));
+        flight = flightRepository.save(flight);
+        SeatLayoutRequest layout = new SeatLayoutRequest();
+        layout.setRows(ROWS);
+        layout.setLetters(LETTERS);
+        BulkSeatRequest bulkSeatRequest = new BulkSeatRequest();
+        bulkSeatRequest.setLayout(layout);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            long start = System.nanoTime();
+            List<Long> seatIds = defaultFlightService.addSeats(flight.getFlightId(), bulkSeatRequest).getBody().getData().getSeatIds();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            int seatCount = ROWS * LETTERS.length();
+            assertEquals(seatCount, seatIds.size());
+            assertEquals(seatCount, seatIds.stream().distinct().count());
+            // one id per statement would need at least seatCount statements
+            long statements = statistics.getPrepareStatementCount();
+            assertTrue(statements < seatCount / 10, statements + " statements for " + seatCount + " seats");
+            log.info(seatCount + " seats added with " + statements + " statements in " + elapsedMillis + " ms");
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @Test
+    void testAlign_whenSequenceIsBehindTable_restartSequenceAfterMaxId() {
+        long hi = jdbcTemplate.queryForObject("select next value for flight_seq", Long.class);
+        insertedFlightId = hi + 1000;
+        jdbcTemplate.update("insert into flight (flight_id, flight_name, total_seat_count, available_seat_count) values (?, ?, 0, 0)",
+                insertedFlightId, "LegacyFlight");
+
+        assertEquals(1, idSequenceAligner.align());
+        assertEquals(0, idSequenceAligner.align());
+        long next = jdbcTemplate.queryForObject("select next value for flight_seq", Long.class);
+        assertTrue(next - 50 + 1 > insertedFlightId);
+    }
+}
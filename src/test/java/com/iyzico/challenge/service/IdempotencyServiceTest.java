@@ -0,0 +1,204 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.concurrent.Deadline;
+import com.iyzico.challenge.entity.IdempotencyRecord;
+import com.iyzico.challenge.exception.BusinessException;
+import com.iyzico.challenge.exception.PaymentPendingException;
+import com.iyzico.challenge.exception.Status;
+import com.iyzico.challenge.exception.TransactionCode;
+import com.iyzico.challenge.repository.IdempotencyRecordRepository;
+import com.iyzico.challenge.response.BaseBody;
+import com.iyzico.challenge.response.DefaultMessageBody;
+import com.iyzico.challenge.response.DefaultMessageResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, new RequestDeadlines(30000, 60000), 60000, 100);
+    }
+
+    @Test
+    void testExecute_whenDuplicateArrivesWhileFirstIsRunning_waitForFirstResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger bookings = new AtomicInteger();
+
+        CompletableFuture<DefaultMessageResponse> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("key", "book:1:1", () -> {
+                    bookings.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return response("booked");
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<DefaultMessageResponse> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("key", "book:1:1", () -> {
+                    bookings.incrementAndGet();
+                    return response("booked twice");
+                }));
+        release.countDown();
+
+        assertEquals("booked", first.get(5, TimeUnit.SECONDS).getBody().getData().getMessage());
+        assertEquals("booked", duplicate.get(5, TimeUnit.SECONDS).getBody().getData().getMessage());
+        assertEquals(1, bookings.get());
+    }
+
+    @Test
+    void testExecute_whenKeyReusedForAnotherSeat_returnErrorCode110() {
+        idempotencyService.execute("key", "book:1:1", () -> response("booked"));
+
+        BusinessException businessException = assertThrows(BusinessException.class,
+                () -> idempotencyService.execute("key", "book:1:2", () -> response("booked")));
+        assertEquals(110, businessException.getTransactionCode().getId());
+    }
+
+    @Test
+    void testExecute_whenResultStoredInDatabase_replayWithoutBooking() {
+        IdempotencyRecord idempotencyRecord = new IdempotencyRecord();
+        idempotencyRecord.setIdempotencyKey("key");
+        idempotencyRecord.setRequestFingerprint("book:1:1");
+        idempotencyRecord.setTransactionCode(TransactionCode.ALREADY_BOOKED.getId());
+        when(idempotencyRecordRepository.findById("key")).thenReturn(Optional.of(idempotencyRecord));
+
+        BusinessException businessException = assertThrows(BusinessException.class,
+                () -> idempotencyService.execute("key", "book:1:1", () -> fail("booking must not run again")));
+        assertEquals(106, businessException.getTransactionCode().getId());
+    }
+
+    @Test
+    void testExecute_whenPaymentFails_allowRetryWithSameKey() {
+        assertThrows(BusinessException.class, () -> idempotencyService.execute("key", "book:1:1", () -> {
+            throw new BusinessException(TransactionCode.PAYMENT_ERROR);
+        }));
+
+        DefaultMessageResponse retry = idempotencyService.execute("key", "book:1:1", () -> response("booked"));
+
+        assertEquals("booked", retry.getBody().getData().getMessage());
+        verify(idempotencyRecordRepository).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testExecute_whenSeatAlreadyBooked_storeOutcome() {
+        assertThrows(BusinessException.class, () -> idempotencyService.execute("key", "book:1:1", () -> {
+            throw new BusinessException(TransactionCode.ALREADY_BOOKED);
+        }));
+
+        BusinessException businessException = assertThrows(BusinessException.class,
+                () -> idempotencyService.execute("key", "book:1:1", () -> response("booked")));
+        assertEquals(106, businessException.getTransactionCode().getId());
+        verify(idempotencyRecordRepository).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testExecute_whenPaymentOutlivesRequest_answerRetryWithSettledResult() throws Exception {
+        CompletableFuture<DefaultMessageResponse> outcome = new CompletableFuture<>();
+        BusinessException timeout = assertThrows(BusinessException.class, () -> idempotencyService.execute("key", "book:1:1", () -> {
+            throw new PaymentPendingException(outcome);
+        }));
+        assertEquals(114, timeout.getTransactionCode().getId());
+
+        AtomicInteger bookings = new AtomicInteger();
+        CompletableFuture<DefaultMessageResponse> retry = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("key", "book:1:1", () -> {
+                    bookings.incrementAndGet();
+                    return response("booked twice");
+                }));
+        outcome.complete(response("booked"));
+
+        assertEquals("booked", retry.get(5, TimeUnit.SECONDS).getBody().getData().getMessage());
+        assertEquals(0, bookings.get());
+        verify(idempotencyRecordRepository).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testExecute_whenRetryDeadlinePassesBeforePendingPaymentSettles_returnErrorCode114AndKeepKey() {
+        CompletableFuture<DefaultMessageResponse> outcome = new CompletableFuture<>();
+        assertThrows(BusinessException.class, () -> idempotencyService.execute("key", "book:1:1", () -> {
+            throw new PaymentPendingException(outcome);
+        }));
+
+        try (Deadline.Scope scope = Deadline.after(100).bind()) {
+            BusinessException businessException = assertThrows(BusinessException.class,
+                    () -> idempotencyService.execute("key", "book:1:1", () -> fail("booking must not run again")));
+            assertEquals(114, businessException.getTransactionCode().getId());
+        }
+        outcome.complete(response("booked"));
+
+        DefaultMessageResponse retry = idempotencyService.execute("key", "book:1:1", () -> fail("booking must not run again"));
+        assertEquals("booked", retry.getBody().getData().getMessage());
+    }
+
+    @Test
+    void testExecute_whenDuplicateDeadlinePassesWhileFirstIsRunning_returnErrorCode111() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<DefaultMessageResponse> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("key", "book:1:1", () -> {
+                    started.countDown();
+                    await(release);
+                    return response("booked");
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        try (Deadline.Scope scope = Deadline.after(100).bind()) {
+            BusinessException businessException = assertThrows(BusinessException.class,
+                    () -> idempotencyService.execute("key", "book:1:1", () -> fail("booking must not run again")));
+            assertEquals(111, businessException.getTransactionCode().getId());
+        }
+        release.countDown();
+
+        assertEquals("booked", first.get(5, TimeUnit.SECONDS).getBody().getData().getMessage());
+    }
+
+    @Test
+    void testExecute_whenPendingPaymentFails_allowRetryWithSameKey() {
+        CompletableFuture<DefaultMessageResponse> outcome = new CompletableFuture<>();
+        assertThrows(BusinessException.class, () -> idempotencyService.execute("key", "book:1:1", () -> {
+            throw new PaymentPendingException(outcome);
+        }));
+        outcome.completeExceptionally(new CompletionException(new BusinessException(TransactionCode.PAYMENT_ERROR)));
+
+        DefaultMessageResponse retry = idempotencyService.execute("key", "book:1:1", () -> response("booked"));
+
+        assertEquals("booked", retry.getBody().getData().getMessage());
+    }
+
+    private static DefaultMessageResponse response(String message) {
+        DefaultMessageResponse defaultMessageResponse = new DefaultMessageResponse();
+        defaultMessageResponse.setBody(new BaseBody<>(new DefaultMessageBody(message)));
+        defaultMessageResponse.setStatus(new Status(TransactionCode.SUCCESS));
+        return defaultMessageResponse;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.concurrent.Bulkhead;
+import com.iyzico.challenge.concurrent.CircuitBreaker;
+import com.iyzico.challenge.concurrent.Deadline;
+import com.iyzico.challenge.concurrent.VirtualThreads;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+class PaymentExecutorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSubmit_whenPoolAndQueueFull_completeExceptionallyWithRejection() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PaymentExecutor paymentExecutor = new PaymentExecutor(meterRegistry, false, 1, 1, 1, 60, PaymentExecutor.FAIL_FAST);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> running = paymentExecutor.submit(() -> await(release));
+        CompletableFuture<String> queued = paymentExecutor.submit(() -> await(release));
+        CompletableFuture<String> rejected = paymentExecutor.submit(() -> "rejected");
+
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(exception.getCause() instanceof RejectedExecutionException);
+        assertEquals(1.0, meterRegistry.get("payment.executor.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("done", running.get());
+        assertEquals("done", queued.get());
+        paymentExecutor.shutdown();
+    }
+
+    @Test
+    void testSubmit_whenCallerRunsPolicy_runOnCallerThread() throws Exception {
+        PaymentExecutor paymentExecutor = new PaymentExecutor(new SimpleMeterRegistry(), false, 1, 1, 1, 60, PaymentExecutor.CALLER_RUNS);
+        CountDownLatch release = new CountDownLatch(1);
+
+        paymentExecutor.submit(() -> await(release));
+        paymentExecutor.submit(() -> await(release));
+        CompletableFuture<String> callerRun = paymentExecutor.submit(() -> Thread.currentThread().getName());
+
+        assertEquals(Thread.currentThread().getName(), callerRun.get());
+        release.countDown();
+        paymentExecutor.shutdown();
+    }
+
+    // skipped on JDK 17; runs in the JDK 21 job of the build workflow
+    @Test
+    void testSubmit_whenVirtualThreadsEnabled_holdThousandsOfSlowPaymentsOnFewOsThreads() throws IOException {
+        assumeTrue(VirtualThreads.isSupported(), "runtime does not support virtual threads");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PaymentExecutor paymentExecutor = new PaymentExecutor(meterRegistry, true, 1, 1, 1, 60, PaymentExecutor.FAIL_FAST);
+        PaymentJournal paymentJournal = new PaymentJournal(tempDir.resolve("payment.journal").toString(), 8192, true);
+        IyzicoPaymentService iyzicoPaymentService = new IyzicoPaymentService(new OneSecondBank(), paymentJournal,
+                mock(PaymentWriteBehindQueue.class), new BookingMetrics(meterRegistry), new PaymentGuards(
+                new CircuitBreaker("bank", new CircuitBreaker.Settings(), meterRegistry), new Bulkhead("bank", 1, 0, meterRegistry),
+                new CircuitBreaker("iyzico", new CircuitBreaker.Settings(), meterRegistry), new Bulkhead("iyzico", 1, 0, meterRegistry),
+                60000));
+
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threadMXBean.getThreadCount();
+        threadMXBean.resetPeakThreadCount();
+        long start = System.nanoTime();
+        List<CompletableFuture<String>> futures = new ArrayList<>(5000);
+        for (int i = 0; i < 5000; i++) {
+            futures.add(paymentExecutor.submit(() -> {
+                iyzicoPaymentService.pay(BigDecimal.TEN);
+                return "done";
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        paymentExecutor.shutdown();
+        int journaled = paymentJournal.pendingEntries(Long.MAX_VALUE).size();
+        paymentJournal.close();
+
+        // 5000 one-second bank calls and their journal fsyncs finish together and the OS thread count barely moves
+        assertEquals(5000, journaled);
+        assertTrue(elapsedMillis < 10_000, "took " + elapsedMillis + " ms");
+        assertTrue(threadMXBean.getPeakThreadCount() - threadsBefore < 200, "peak " + threadMXBean.getPeakThreadCount() + " threads");
+    }
+
+    @Test
+    void testSubmit_whenVirtualThreadsUnavailable_fallBackToBoundedPool() {
+        PaymentExecutor paymentExecutor = new PaymentExecutor(new SimpleMeterRegistry(), !VirtualThreads.isSupported(), 8, 8, 1000, 60, PaymentExecutor.FAIL_FAST);
+
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threadMXBean.getThreadCount();
+        threadMXBean.resetPeakThreadCount();
+        List<CompletableFuture<String>> futures = submitSlowPayments(paymentExecutor, 200, 20);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        paymentExecutor.shutdown();
+
+        assertTrue(threadMXBean.getPeakThreadCount() - threadsBefore <= 8 + 4, "peak " + threadMXBean.getPeakThreadCount() + " threads");
+    }
+
+    @Test
+    void testSubmit_whenDeadlineBound_bindItOnPaymentThread() throws Exception {
+        PaymentExecutor paymentExecutor = new PaymentExecutor(new SimpleMeterRegistry(), false, 1, 1, 1, 60, PaymentExecutor.FAIL_FAST);
+        Deadline deadline = Deadline.after(60000);
+
+        CompletableFuture<Deadline> bound;
+        try (Deadline.Scope scope = deadline.bind()) {
+            bound = paymentExecutor.submit(Deadline::current);
+        }
+
+        assertSame(deadline, bound.get());
+        assertNull(paymentExecutor.submit(Deadline::current).get());
+        assertNull(Deadline.current());
+        paymentExecutor.shutdown();
+    }
+
+    @Test
+    void testSubmit_whenDeadlinePassesWhileQueued_dropTask() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PaymentExecutor paymentExecutor = new PaymentExecutor(meterRegistry, false, 1, 1, 1, 60, PaymentExecutor.FAIL_FAST);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        CompletableFuture<String> running = paymentExecutor.submit(() -> await(release));
+        CompletableFuture<String> queued;
+        try (Deadline.Scope scope = Deadline.after(50).bind()) {
+            queued = paymentExecutor.submit(() -> {
+                ran.set(true);
+                return "paid";
+            });
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        ExecutionException exception = assertThrows(ExecutionException.class, queued::get);
+        assertTrue(exception.getCause() instanceof Deadline.DeadlineExceededException);
+        assertFalse(ran.get());
+        assertEquals(1.0, meterRegistry.get("payment.executor.expired").counter().count());
+        assertEquals("done", running.get());
+        paymentExecutor.shutdown();
+    }
+
+    private static List<CompletableFuture<String>> submitSlowPayments(PaymentExecutor paymentExecutor, int count, long latencyMillis) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(paymentExecutor.submit(() -> {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "done";
+            }));
+        }
+        return futures;
+    }
+
+    private static final class OneSecondBank extends BankService {
+
+        @Override
+        public BankPaymentResponse pay(BankPaymentRequest request) {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new BankPaymentResponse("200");
+        }
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
@@ -0,0 +1,126 @@
+package com.iyzico.challenge.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAppend_whenEntryNotCommitted_returnAsPending() throws IOException {
+        PaymentJournal paymentJournal = new PaymentJournal(journalPath(), 8, true);
+
+        PaymentJournal.Entry entry = paymentJournal.append(new BigDecimal("10.50"), "200");
+        List<PaymentJournal.Entry> pendingEntries = paymentJournal.pendingEntries(Long.MAX_VALUE);
+        paymentJournal.close();
+
+        assertEquals(1, pendingEntries.size());
+        assertEquals(entry.getSequence(), pendingEntries.get(0).getSequence());
+        assertEquals(new BigDecimal("10.50"), pendingEntries.get(0).getPrice());
+        assertEquals("200", pendingEntries.get(0).getResultCode());
+    }
+
+    @Test
+    void testMarkCommitted_whenEntryCommitted_notReturnAsPending() throws IOException {
+        PaymentJournal paymentJournal = new PaymentJournal(journalPath(), 8, true);
+
+        PaymentJournal.Entry entry = paymentJournal.append(BigDecimal.TEN, "200");
+        paymentJournal.markCommitted(entry);
+        List<PaymentJournal.Entry> pendingEntries = paymentJournal.pendingEntries(Long.MAX_VALUE);
+        paymentJournal.close();
+
+        assertTrue(pendingEntries.isEmpty());
+    }
+
+    @Test
+    void testOpen_whenJournalReopened_pendingEntriesAndSequenceSurvive() throws IOException {
+        PaymentJournal paymentJournal = new PaymentJournal(journalPath(), 8, true);
+        PaymentJournal.Entry committed = paymentJournal.append(BigDecimal.ONE, "200");
+        PaymentJournal.Entry pending = paymentJournal.append(BigDecimal.TEN, "200");
+        paymentJournal.markCommitted(committed);
+        paymentJournal.close();
+
+        PaymentJournal reopened = new PaymentJournal(journalPath(), 8, true);
+        List<PaymentJournal.Entry> pendingEntries = reopened.pendingEntries(Long.MAX_VALUE);
+        PaymentJournal.Entry next = reopened.append(BigDecimal.ONE, "200");
+        reopened.close();
+
+        assertEquals(1, pendingEntries.size());
+        assertEquals(pending.getSequence(), pendingEntries.get(0).getSequence());
+        assertTrue(next.getSequence() > pending.getSequence());
+    }
+
+    @Test
+    void testAppend_whenAllSlotsPending_throwJournalFullException() throws IOException {
+        PaymentJournal paymentJournal = new PaymentJournal(journalPath(), 2, false);
+        paymentJournal.append(BigDecimal.ONE, "200");
+        PaymentJournal.Entry second = paymentJournal.append(BigDecimal.ONE, "200");
+
+        assertThrows(PaymentJournal.JournalFullException.class, () -> paymentJournal.append(BigDecimal.ONE, "200"));
+
+        paymentJournal.markCommitted(second);
+        assertEquals(second.getSlot(), paymentJournal.append(BigDecimal.ONE, "200").getSlot());
+        paymentJournal.close();
+    }
+
+    @Test
+    void testAppend_whenResultCodeTooLong_throwIllegalArgumentExceptionAndWriteNothing() throws IOException {
+        PaymentJournal paymentJournal = new PaymentJournal(journalPath(), 8, false);
+        PaymentJournal.Entry first = paymentJournal.append(BigDecimal.ONE, "200");
+
+        assertThrows(IllegalArgumentException.class, () -> paymentJournal.append(BigDecimal.TEN, "x".repeat(33)));
+        PaymentJournal.Entry next = paymentJournal.append(BigDecimal.ONE, "200");
+        List<PaymentJournal.Entry> pendingEntries = paymentJournal.pendingEntries(Long.MAX_VALUE);
+        paymentJournal.close();
+
+        assertEquals(2, pendingEntries.size());
+        assertEquals(first.getSequence() + 1, next.getSequence());
+        assertEquals(first.getSlot() + 1, next.getSlot());
+    }
+
+    @Test
+    void testAppend_whenFsyncFails_throwJournalSyncExceptionWithEntry() throws IOException {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        PaymentJournal paymentJournal = new PaymentJournal(journalPath(), 8, true) {
+            @Override
+            void forceBuffer() {
+                if (failing.get()) {
+                    throw new UncheckedIOException(new IOException("disk full"));
+                }
+                super.forceBuffer();
+            }
+        };
+
+        PaymentJournal.JournalSyncException exception = assertThrows(PaymentJournal.JournalSyncException.class,
+                () -> paymentJournal.append(BigDecimal.TEN, "200"));
+        assertEquals(1, paymentJournal.pendingEntries(Long.MAX_VALUE).size());
+        assertEquals(paymentJournal.pendingEntries(Long.MAX_VALUE).get(0).getSequence(), exception.getEntry().getSequence());
+
+        failing.set(false);
+        assertNotNull(paymentJournal.append(BigDecimal.ONE, "200"));
+        paymentJournal.close();
+    }
+
+    @Test
+    void testAppend_whenJournalClosed_throwJournalSyncException() throws IOException {
+        PaymentJournal paymentJournal = new PaymentJournal(journalPath(), 8, true);
+        paymentJournal.close();
+
+        assertThrows(PaymentJournal.JournalSyncException.class, () -> paymentJournal.append(BigDecimal.ONE, "200"));
+    }
+
+    private String journalPath() {
+        return tempDir.resolve("payment.journal").toString();
+    }
+}
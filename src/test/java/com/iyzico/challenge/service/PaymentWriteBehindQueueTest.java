@@ -0,0 +1,119 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.entity.Payment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentWriteBehindQueueTest {
+
+    @Mock
+    private PaymentWriter paymentWriter;
+
+    @Mock
+    private PaymentJournal paymentJournal;
+
+    private PaymentWriteBehindQueue paymentWriteBehindQueue;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        paymentWriteBehindQueue.shutdown();
+    }
+
+    @Test
+    void testEnqueue_whenShutdown_allPaymentsAreFlushed() throws InterruptedException {
+        paymentWriteBehindQueue = newQueue(100, 10);
+
+        for (int i = 0; i < 25; i++) {
+            paymentWriteBehindQueue.enqueue(getPayment(i), null);
+        }
+        paymentWriteBehindQueue.shutdown();
+
+        assertEquals(25, savedPayments().size());
+        assertEquals(0, paymentWriteBehindQueue.size());
+    }
+
+    @Test
+    void testEnqueue_whenQueueIsClosed_persistOnCallerThread() throws InterruptedException {
+        paymentWriteBehindQueue = newQueue(1, 1);
+        paymentWriteBehindQueue.shutdown();
+
+        paymentWriteBehindQueue.enqueue(getPayment(1), null);
+
+        assertEquals(1, savedPayments().size());
+    }
+
+    @Test
+    void testEnqueue_whenBatchFails_retryOneByOne() throws InterruptedException {
+        doThrow(new RuntimeException("test")).doNothing().when(paymentWriter).write(anyList());
+        paymentWriteBehindQueue = newQueue(100, 10);
+
+        paymentWriteBehindQueue.enqueue(getPayment(1), null);
+        paymentWriteBehindQueue.enqueue(getPayment(2), null);
+        paymentWriteBehindQueue.shutdown();
+
+        verify(paymentWriter, times(3)).write(anyList());
+    }
+
+    @Test
+    void testEnqueue_whenBatchIsSaved_markJournalEntriesCommitted() throws InterruptedException {
+        PaymentJournal.Entry entry = new PaymentJournal.Entry(0, 1L, 0L, BigDecimal.ONE, "200");
+        paymentWriteBehindQueue = newQueue(100, 10);
+
+        paymentWriteBehindQueue.enqueue(getPayment(1), entry);
+        paymentWriteBehindQueue.shutdown();
+
+        verify(paymentJournal).markCommitted(entry);
+    }
+
+    @Test
+    void testEnqueue_whenPaymentCannotBeSaved_leaveJournalEntryPending() throws InterruptedException {
+        PaymentJournal.Entry entry = new PaymentJournal.Entry(0, 1L, 0L, BigDecimal.ONE, "200");
+        doThrow(new RuntimeException("test")).when(paymentWriter).write(anyList());
+        paymentWriteBehindQueue = newQueue(100, 10);
+
+        paymentWriteBehindQueue.enqueue(getPayment(1), entry);
+        paymentWriteBehindQueue.shutdown();
+
+        verify(paymentJournal, never()).markCommitted(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Payment> savedPayments() {
+        ArgumentCaptor<List<Payment>> captor = ArgumentCaptor.forClass(List.class);
+        verify(paymentWriter, atLeastOnce()).write(captor.capture());
+        List<Payment> saved = new ArrayList<>();
+        captor.getAllValues().forEach(saved::addAll);
+        return saved;
+    }
+
+    private PaymentWriteBehindQueue newQueue(int capacity, int batchSize) {
+        return new PaymentWriteBehindQueue(paymentWriter, paymentJournal, new SimpleMeterRegistry(),
+                capacity, 1, batchSize, 10, 5000);
+    }
+
+    private Payment getPayment(int price) {
+        Payment payment = new Payment();
+        payment.setPrice(BigDecimal.valueOf(price));
+        payment.setBankResponse("200");
+        return payment;
+    }
+}
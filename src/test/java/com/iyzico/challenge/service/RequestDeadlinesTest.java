@@ -0,0 +1,41 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.concurrent.Deadline;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestDeadlinesTest {
+
+    private final RequestDeadlines requestDeadlines = new RequestDeadlines(30000, 60000);
+
+    @Test
+    void testResolve_whenNoTimeoutRequested_returnDefault() {
+        assertEquals(30000, requestDeadlines.resolve(null).getTimeoutMillis());
+        assertEquals(30000, requestDeadlines.resolve(0L).getTimeoutMillis());
+    }
+
+    @Test
+    void testResolve_whenTimeoutRequested_capAtMaximum() {
+        assertEquals(5000, requestDeadlines.resolve(5000L).getTimeoutMillis());
+        assertEquals(60000, requestDeadlines.resolve(600000L).getTimeoutMillis());
+    }
+
+    @Test
+    void testCurrent_whenDeadlineBound_returnIt() {
+        Deadline deadline = Deadline.after(1000);
+
+        try (Deadline.Scope scope = deadline.bind()) {
+            assertSame(deadline, requestDeadlines.current());
+        }
+        assertEquals(30000, requestDeadlines.current().getTimeoutMillis());
+    }
+
+    @Test
+    void testCheck_whenDeadlinePassed_throwDeadlineExceeded() {
+        Deadline deadline = Deadline.after(0);
+
+        assertTrue(deadline.isExpired());
+        assertThrows(Deadline.DeadlineExceededException.class, () -> deadline.check("Payment"));
+    }
+}
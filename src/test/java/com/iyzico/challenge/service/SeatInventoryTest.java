@@ -0,0 +1,166 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.concurrent.HashedTimingWheel;
+import com.iyzico.challenge.dto.SeatStateDto;
+import com.iyzico.challenge.exception.BusinessException;
+import com.iyzico.challenge.repository.SeatRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SeatInventoryTest {
+
+    private static final long HOLD_TTL_MILLIS = 200;
+
+    @Mock
+    private SeatRepository seatRepository;
+
+    private HashedTimingWheel timingWheel;
+    private SeatInventory seatInventory;
+
+    @BeforeEach
+    void setUp() {
+        timingWheel = new HashedTimingWheel("seat-hold-timer", 10, TimeUnit.MILLISECONDS, 64);
+        seatInventory = new SeatInventory(seatRepository, timingWheel, HOLD_TTL_MILLIS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    void testRebuild_whenSeatsExist_indexDatabaseState() {
+        when(seatRepository.findAllSeatStates()).thenReturn(Arrays.asList(
+                new SeatStateDto(1L, 1L, false),
+                new SeatStateDto(1L, 2L, true)));
+
+        seatInventory.rebuild();
+
+        assertNotNull(seatInventory.tryHold(1L, 1L));
+        BusinessException businessException = assertThrows(BusinessException.class, () -> seatInventory.tryHold(1L, 2L));
+        assertEquals(106, businessException.getTransactionCode().getId());
+    }
+
+    @Test
+    void testTryHold_whenCalledConcurrently_onlyOneWins() throws InterruptedException {
+        int contenders = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(contenders);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+        for (int i = 0; i < contenders; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    seatInventory.tryHold(1L, 1L);
+                    winners.incrementAndGet();
+                } catch (BusinessException e) {
+                    assertEquals(111, e.getTransactionCode().getId());
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1, winners.get());
+    }
+
+    @Test
+    void testRelease_whenSeatHeld_seatCanBeHeldAgain() {
+        SeatInventory.Hold hold = seatInventory.tryHold(1L, 1L);
+        seatInventory.release(hold);
+
+        assertNotNull(seatInventory.tryHold(1L, 1L));
+    }
+
+    @Test
+    void testConfirm_whenSeatHeld_seatStaysReservedAfterTtl() throws InterruptedException {
+        SeatInventory.Hold hold = seatInventory.tryHold(1L, 1L);
+        seatInventory.confirm(hold);
+        Thread.sleep(HOLD_TTL_MILLIS * 3);
+
+        BusinessException businessException = assertThrows(BusinessException.class, () -> seatInventory.tryHold(1L, 1L));
+        assertEquals(106, businessException.getTransactionCode().getId());
+    }
+
+    @Test
+    void testTryHold_whenHoldExpires_seatIsFreedAndOldHoldCannotRelease() throws InterruptedException {
+        SeatInventory.Hold expired = seatInventory.tryHold(1L, 1L);
+        Thread.sleep(HOLD_TTL_MILLIS * 3);
+
+        assertFalse(expired.isActive());
+        SeatInventory.Hold next = seatInventory.tryHold(1L, 1L);
+        assertNotNull(next);
+        seatInventory.release(expired);
+        assertTrue(next.isActive());
+    }
+
+    @Test
+    void testKeep_whenHoldOutlivesTtl_seatStaysHeld() throws InterruptedException {
+        SeatInventory.Hold hold = seatInventory.tryHold(1L, 1L);
+        seatInventory.keep(hold);
+        Thread.sleep(HOLD_TTL_MILLIS * 3);
+
+        assertTrue(hold.isActive());
+        BusinessException businessException = assertThrows(BusinessException.class, () -> seatInventory.tryHold(1L, 1L));
+        assertEquals(111, businessException.getTransactionCode().getId());
+    }
+
+    @Test
+    void testFree_whenContenderMarkedSeatReserved_seatCanBeHeldAgain() throws InterruptedException {
+        SeatInventory.Hold expired = seatInventory.tryHold(1L, 1L);
+        Thread.sleep(HOLD_TTL_MILLIS * 3);
+        // the contender found the row still claimed by the expired hold's booking
+        seatInventory.confirm(seatInventory.tryHold(1L, 1L));
+
+        seatInventory.free(expired);
+
+        assertNotNull(seatInventory.tryHold(1L, 1L));
+    }
+
+    @Test
+    void testFree_whenSeatHeldByNewerHold_leaveNewerHold() throws InterruptedException {
+        SeatInventory.Hold expired = seatInventory.tryHold(1L, 1L);
+        Thread.sleep(HOLD_TTL_MILLIS * 3);
+        SeatInventory.Hold next = seatInventory.tryHold(1L, 1L);
+
+        seatInventory.free(expired);
+
+        assertTrue(next.isActive());
+    }
+
+    @Test
+    void testRemoveFlight_whenSeatReserved_seatCanBeHeldAgain() {
+        seatInventory.register(1L, 1L, true);
+        seatInventory.removeFlight(1L);
+
+        assertNotNull(seatInventory.tryHold(1L, 1L));
+    }
+
+    @Test
+    void testDiscard_whenSeatDoesNotExist_dropHoldFromIndex() {
+        SeatInventory.Hold hold = seatInventory.tryHold(1L, 99L);
+        seatInventory.discard(hold);
+
+        assertNotNull(seatInventory.tryHold(1L, 99L));
+    }
+}
@@ -0,0 +1,106 @@
+package com.iyzico.challenge.service;
+
+import com.iyzico.challenge.repository.FlightRepository;
+import com.iyzico.challenge.request.FlightRequest;
+import com.iyzico.challenge.request.SeatRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SeatReservationsTest {
+
+    @Autowired
+    private SeatReservations seatReservations;
+
+    @Autowired
+    private DefaultFlightService defaultFlightService;
+
+    @Autowired
+    private SeatCountRepairJob seatCountRepairJob;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long flightId;
+    private Long seatId;
+
+    @BeforeEach
+    void setUp() {
+        flightId = defaultFlightService.createFlight(flightRequest()).getBody().getData().getFlightId();
+        seatId = defaultFlightService.addSeat(flightId, seatRequest("1A")).getBody().getData().getSeatId();
+        defaultFlightService.addSeat(flightId, seatRequest("1B"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from booked_seat where flight_id = ?", flightId);
+        jdbcTemplate.update("delete from seat where flight_id = ?", flightId);
+        defaultFlightService.deleteFlight(flightId);
+    }
+
+    @Test
+    void testClaim_whenRepairJobRunsAfterwards_keepAvailableSeatCount() {
+        assertTrue(seatReservations.claim(flightId, seatId));
+        assertEquals(1, availableSeatCount());
+
+        seatCountRepairJob.repair();
+        assertEquals(1, availableSeatCount());
+    }
+
+    @Test
+    void testClaim_whenSeatAlreadyReserved_returnFalseAndKeepCount() {
+        assertTrue(seatReservations.claim(flightId, seatId));
+
+        assertFalse(seatReservations.claim(flightId, seatId));
+        assertEquals(1, availableSeatCount());
+    }
+
+    @Test
+    void testRelease_whenSeatClaimed_restoreAvailableSeatCount() {
+        assertTrue(seatReservations.claim(flightId, seatId));
+
+        assertTrue(seatReservations.release(flightId, seatId));
+        assertEquals(2, availableSeatCount());
+        assertFalse(seatReservations.release(flightId, seatId));
+        assertEquals(2, availableSeatCount());
+    }
+
+    @Test
+    void testBook_whenSeatClaimed_storeBookedSeat() {
+        assertTrue(seatReservations.claim(flightId, seatId));
+
+        assertNotNull(seatReservations.book(flightRepository.findById(flightId).orElseThrow(IllegalStateException::new), seatId).getId());
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from booked_seat where flight_id = ?", Integer.class, flightId));
+        assertEquals(1, availableSeatCount());
+    }
+
+    private int availableSeatCount() {
+        return flightRepository.findById(flightId).orElseThrow(IllegalStateException::new).getAvailableSeatCount();
+    }
+
+    private static FlightRequest flightRequest() {
+        FlightRequest flightRequest = new FlightRequest();
+        flightRequest.setFlightName("SeatReservationsFlight");
+        flightRequest.setPrice(BigDecimal.valueOf(100));
+        flightRequest.setDepartureTime("01-01-2030 10:00");
+        flightRequest.setArrivalTime("01-01-2030 12:00");
+        return flightRequest;
+    }
+
+    private static SeatRequest seatRequest(String seatName) {
+        SeatRequest seatRequest = new SeatRequest();
+        seatRequest.setSeatName(seatName);
+        return seatRequest;
+    }
+}
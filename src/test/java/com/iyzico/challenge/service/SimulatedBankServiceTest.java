@@ -0,0 +1,106 @@
+package com.iyzico.challenge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatedBankServiceTest {
+
+    private static final int SAMPLES = 10000;
+
+    @Test
+    void testPay_whenNoErrorsConfigured_returnSuccessCode() {
+        SimulatedBankService bankService = bankService(0, 0, 0, 0, 1, new AtomicLong());
+
+        BankPaymentResponse response = bankService.pay(request());
+
+        assertEquals(SimulatedBankService.SUCCESS_CODE, response.getResultCode());
+    }
+
+    @Test
+    void testPay_whenEveryCallFails_returnErrorCode() {
+        SimulatedBankService bankService = bankService(1, 0, 0, 0, 1, new AtomicLong());
+
+        BankPaymentResponse response = bankService.pay(request());
+
+        assertEquals("500", response.getResultCode());
+    }
+
+    @Test
+    void testPay_whenEveryCallTimesOut_throwBankTimeoutException() {
+        SimulatedBankService bankService = bankService(0, 1, 0, 0, 1, new AtomicLong());
+
+        assertThrows(SimulatedBankService.BankTimeoutException.class, () -> bankService.pay(request()));
+    }
+
+    @Test
+    void testNew_whenRatesExceedOne_throwIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> bankService(0.6, 0.6, 0, 0, 1, new AtomicLong()));
+    }
+
+    @Test
+    void testLatencyMillis_whenInsideBurst_multiplyLatency() {
+        AtomicLong clock = new AtomicLong();
+        SimulatedBankService bankService = bankService(0, 0, 1000, 100, 10, clock);
+
+        clock.set(50);
+        assertEquals(200, bankService.latencyMillis(20));
+        clock.set(500);
+        assertEquals(20, bankService.latencyMillis(20));
+        clock.set(1050);
+        assertEquals(200, bankService.latencyMillis(20));
+    }
+
+    @Test
+    void testSampleMillis_whenUniform_stayWithinBounds() {
+        long[] samples = sample(LatencyDistribution.uniform(100, 200));
+
+        assertTrue(samples[0] >= 100);
+        assertTrue(samples[SAMPLES - 1] <= 200);
+    }
+
+    @Test
+    void testSampleMillis_whenLogNormal_centerOnMedianWithLongTail() {
+        long[] samples = sample(LatencyDistribution.logNormal(1000, 0.5));
+
+        long median = samples[SAMPLES / 2];
+        long p99 = samples[SAMPLES * 99 / 100];
+        assertTrue(median > 900 && median < 1100, "median " + median);
+        assertTrue(p99 > 2 * median, "p99 " + p99);
+    }
+
+    @Test
+    void testSampleMillis_whenBimodal_splitBySlowShare() {
+        long[] samples = sample(LatencyDistribution.bimodal(LatencyDistribution.fixed(10), LatencyDistribution.fixed(1000), 0.1));
+
+        long slow = Arrays.stream(samples).filter(sample -> sample == 1000).count();
+        assertTrue(slow > SAMPLES * 0.08 && slow < SAMPLES * 0.12, slow + " slow samples");
+    }
+
+    private static SimulatedBankService bankService(double errorRate, double timeoutRate, long burstPeriodMillis,
+                                                    long burstDurationMillis, double burstLatencyFactor, AtomicLong clock) {
+        return new SimulatedBankService(LatencyDistribution.fixed(0), errorRate, "500", timeoutRate, 0,
+                burstPeriodMillis, burstDurationMillis, burstLatencyFactor, clock::get);
+    }
+
+    private static BankPaymentRequest request() {
+        BankPaymentRequest request = new BankPaymentRequest();
+        request.setPrice(BigDecimal.TEN);
+        return request;
+    }
+
+    private static long[] sample(LatencyDistribution latencyDistribution) {
+        Random random = new Random(42);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = latencyDistribution.sampleMillis(random);
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+}